@@ -0,0 +1,101 @@
+/*
+ ** 2026 October 18
+ **
+ ** The author disclaims copyright to this source code. In place of
+ ** a legal notice, here is a blessing:
+ **    May you do good and not evil.
+ **    May you find forgiveness for yourself and forgive others.
+ **    May you share freely, never taking more than you give.
+ */
+package info.ata4.disunity.benchmarks;
+
+import info.ata4.junity.bundle.Bundle;
+import info.ata4.junity.bundle.BundleEntry;
+import info.ata4.junity.bundle.BundleReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for reading the entry tables of bundles and for extracting all
+ * entries.
+ *
+ * @author Nico Bergemann <barracuda415 at yahoo.de>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BundleReaderBenchmark {
+
+    /**
+     * Bundle format: LZMA compressed UnityWeb, LZ4HC compressed UnityFS or
+     * uncompressed UnityRaw.
+     */
+    @Param({"lzma", "lz4", "raw"})
+    private String compression;
+
+    @Param({"8"})
+    private int numEntries;
+
+    @Param({"2097152"})
+    private int entrySize;
+
+    private Path bundleFile;
+    private final byte[] buffer = new byte[1 << 16];
+
+    @Setup
+    public void setUp() throws IOException {
+        SyntheticFileGenerator generator = new SyntheticFileGenerator();
+        generator.compression(compression);
+        generator.numEntries(numEntries);
+        generator.entrySize(entrySize);
+
+        bundleFile = Files.createTempFile("disunity-bench", ".unity3d");
+        generator.writeBundle(bundleFile);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(bundleFile);
+    }
+
+    @Benchmark
+    public Bundle read() throws IOException {
+        try (BundleReader reader = new BundleReader(bundleFile)) {
+            return reader.read();
+        }
+    }
+
+    @Benchmark
+    public long extract() throws IOException {
+        long total = 0;
+        try (BundleReader reader = new BundleReader(bundleFile)) {
+            for (BundleEntry entry : reader.read().entries()) {
+                try (InputStream is = entry.inputStream()) {
+                    int read;
+                    while ((read = is.read(buffer)) != -1) {
+                        total += read;
+                    }
+                }
+            }
+        }
+        return total;
+    }
+}
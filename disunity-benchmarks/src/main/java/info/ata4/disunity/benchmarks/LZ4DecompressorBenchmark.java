@@ -0,0 +1,68 @@
+/*
+ ** 2026 October 18
+ **
+ ** The author disclaims copyright to this source code. In place of
+ ** a legal notice, here is a blessing:
+ **    May you do good and not evil.
+ **    May you find forgiveness for yourself and forgive others.
+ **    May you share freely, never taking more than you give.
+ */
+package info.ata4.disunity.benchmarks;
+
+import info.ata4.util.lz4.LZ4FastDecompressor;
+import info.ata4.util.lz4.LZ4JavaSafeFastDecompressor;
+import info.ata4.util.lz4.LZ4JavaUnsafeFastDecompressor;
+import info.ata4.util.lz4.LZ4Utils;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for decompressing LZ4 blocks with the size of UnityFS storage
+ * blocks.
+ *
+ * @author Nico Bergemann <barracuda415 at yahoo.de>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LZ4DecompressorBenchmark {
+
+    @Param({"safe", "unsafe"})
+    private String decompressorType;
+
+    @Param({"131072"})
+    private int blockSize;
+
+    private LZ4FastDecompressor decompressor;
+    private byte[] compressed;
+    private byte[] uncompressed;
+
+    @Setup
+    public void setUp() {
+        decompressor = decompressorType.equals("unsafe")
+                ? LZ4JavaUnsafeFastDecompressor.INSTANCE
+                : LZ4JavaSafeFastDecompressor.INSTANCE;
+
+        byte[] data = SyntheticInputStream.bytes(blockSize, 42);
+        compressed = LZ4Utils.highCompressor().compress(data);
+        uncompressed = new byte[blockSize];
+    }
+
+    @Benchmark
+    public int decompress() {
+        return decompressor.decompress(compressed, 0, uncompressed, 0, blockSize);
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ ** 2026 October 18
+ **
+ ** The author disclaims copyright to this source code. In place of
+ ** a legal notice, here is a blessing:
+ **    May you do good and not evil.
+ **    May you find forgiveness for yourself and forgive others.
+ **    May you share freely, never taking more than you give.
+ */
+package info.ata4.disunity.benchmarks;
+
+import info.ata4.junity.serialize.SerializedFile;
+import info.ata4.junity.serialize.SerializedFileReader;
+import info.ata4.junity.serialize.SerializedObjectData;
+import info.ata4.junity.serialize.deserialize.FieldAccessor;
+import info.ata4.junity.serialize.deserialize.ObjectDeserializer;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmark for deserializing all objects of a serialized file with the
+ * embedded type trees, compared to reading only the first field of each object
+ * with a field accessor.
+ *
+ * @author Nico Bergemann <barracuda415 at yahoo.de>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ObjectDeserializerBenchmark {
+
+    /**
+     * Nesting depth of the generated classes.
+     */
+    @Param({"1", "4"})
+    private int depth;
+
+    private SerializedFile serialized;
+
+    @Setup
+    public void setUp() throws IOException {
+        SyntheticFileGenerator generator = new SyntheticFileGenerator();
+        generator.numObjects(10000);
+        generator.depth(depth);
+
+        Path file = Files.createTempFile("disunity-bench", ".assets");
+        try {
+            generator.writeSerializedFile(file);
+            try (SerializedFileReader reader = new SerializedFileReader(file)) {
+                serialized = reader.read();
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Benchmark
+    public void deserialize(Blackhole bh) throws IOException {
+        ObjectDeserializer deserializer = new ObjectDeserializer(serialized);
+        for (SerializedObjectData object : serialized.objectData()) {
+            bh.consume(deserializer.deserialize(object));
+        }
+    }
+
+    @Benchmark
+    public void accessFirstField(Blackhole bh) {
+        ObjectDeserializer deserializer = new ObjectDeserializer(serialized);
+        for (SerializedObjectData object : serialized.objectData()) {
+            FieldAccessor accessor = deserializer.accessor(object.typeTree(), "m_Field0");
+            if (accessor != null && accessor.isPrimitive()) {
+                bh.consume(accessor.getLong(object.buffer()));
+            }
+        }
+    }
+}
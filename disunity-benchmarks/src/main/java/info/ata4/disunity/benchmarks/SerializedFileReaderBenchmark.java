@@ -0,0 +1,72 @@
+/*
+ ** 2026 October 18
+ **
+ ** The author disclaims copyright to this source code. In place of
+ ** a legal notice, here is a blessing:
+ **    May you do good and not evil.
+ **    May you find forgiveness for yourself and forgive others.
+ **    May you share freely, never taking more than you give.
+ */
+package info.ata4.disunity.benchmarks;
+
+import info.ata4.junity.serialize.SerializedFile;
+import info.ata4.junity.serialize.SerializedFileReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for reading serialized files including all object data.
+ *
+ * @author Nico Bergemann <barracuda415 at yahoo.de>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SerializedFileReaderBenchmark {
+
+    /**
+     * File size: a few hundred objects or a hundred thousand objects.
+     */
+    @Param({"small", "large"})
+    private String size;
+
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        SyntheticFileGenerator generator = new SyntheticFileGenerator();
+        generator.numObjects(size.equals("small") ? 500 : 100000);
+
+        file = Files.createTempFile("disunity-bench", ".assets");
+        generator.writeSerializedFile(file);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public SerializedFile read() throws IOException {
+        try (SerializedFileReader reader = new SerializedFileReader(file)) {
+            return reader.read();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ ** 2026 October 18
+ **
+ ** The author disclaims copyright to this source code. In place of
+ ** a legal notice, here is a blessing:
+ **    May you do good and not evil.
+ **    May you find forgiveness for yourself and forgive others.
+ **    May you share freely, never taking more than you give.
+ */
+package info.ata4.disunity.benchmarks;
+
+import info.ata4.junity.serialize.typetree.CommonStringTable;
+import info.ata4.junity.serialize.typetree.StringTable;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for fetching the common strings of type trees, which happens once
+ * per type tree block in every serialized file, and for resolving a string
+ * offset with them.
+ *
+ * @author Nico Bergemann <barracuda415 at yahoo.de>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StringTableBenchmark {
+
+    // offset of "GameObject" in the 5.x strings
+    private static final int OFFSET = (1 << 31) + 172;
+
+    @Benchmark
+    public CommonStringTable commonStrings() throws IOException {
+        return StringTable.commonStringTable(5);
+    }
+
+    @Benchmark
+    public String resolve() throws IOException {
+        return StringTable.commonStringTable(5).string(OFFSET);
+    }
+}
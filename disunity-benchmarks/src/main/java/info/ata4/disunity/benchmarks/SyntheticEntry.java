@@ -0,0 +1,46 @@
+/*
+ ** 2026 October 18
+ **
+ ** The author disclaims copyright to this source code. In place of
+ ** a legal notice, here is a blessing:
+ **    May you do good and not evil.
+ **    May you find forgiveness for yourself and forgive others.
+ **    May you share freely, never taking more than you give.
+ */
+package info.ata4.disunity.benchmarks;
+
+import info.ata4.junity.bundle.BundleEntry;
+import java.io.InputStream;
+
+/**
+ * Bundle entry with synthetic data that is generated while it's written.
+ *
+ * @author Nico Bergemann <barracuda415 at yahoo.de>
+ */
+public class SyntheticEntry extends BundleEntry {
+
+    private final String name;
+    private final long size;
+    private final long seed;
+
+    public SyntheticEntry(String name, long size, long seed) {
+        this.name = name;
+        this.size = size;
+        this.seed = seed;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public InputStream inputStream() {
+        return new SyntheticInputStream(seed, size);
+    }
+}
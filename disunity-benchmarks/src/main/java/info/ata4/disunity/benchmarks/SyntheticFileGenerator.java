@@ -0,0 +1,533 @@
+/*
+ ** 2026 October 18
+ **
+ ** The author disclaims copyright to this source code. In place of
+ ** a legal notice, here is a blessing:
+ **    May you do good and not evil.
+ **    May you find forgiveness for yourself and forgive others.
+ **    May you share freely, never taking more than you give.
+ */
+package info.ata4.disunity.benchmarks;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.ParameterException;
+import info.ata4.io.DataWriters;
+import info.ata4.junity.UnityHash128;
+import info.ata4.junity.UnityVersion;
+import info.ata4.junity.bundle.Bundle;
+import info.ata4.junity.bundle.BundleBlockInfo;
+import info.ata4.junity.bundle.BundleHeader;
+import info.ata4.junity.bundle.BundleWriter;
+import info.ata4.junity.serialize.SerializedFile;
+import info.ata4.junity.serialize.SerializedFileMetadata;
+import info.ata4.junity.serialize.SerializedFileWriter;
+import info.ata4.junity.serialize.SerializedObjectData;
+import info.ata4.junity.serialize.fileidentifier.FileIdentifierTable;
+import info.ata4.junity.serialize.fileidentifier.FileIdentifierV2;
+import info.ata4.junity.serialize.objectidentifier.ObjectIdentifierTable;
+import info.ata4.junity.serialize.objectinfo.ObjectInfoTableV2;
+import info.ata4.junity.serialize.objectinfo.ObjectInfoV3;
+import info.ata4.junity.serialize.typetree.Type;
+import info.ata4.junity.serialize.typetree.TypeRoot;
+import info.ata4.junity.serialize.typetree.TypeTreeV3;
+import info.ata4.junity.serialize.typetree.TypeV2;
+import info.ata4.util.collection.Node;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generator for synthetic serialized files and bundles of configurable size
+ * and structure, for scale tests and benchmarks without real game data.
+ *
+ * Serialized files use the Unity 5 format with embedded type trees. Each
+ * class has a number of primitive, string and array fields and may contain
+ * nested structs. The object data matches the type trees. To keep the memory
+ * usage low for millions of objects, each class only has a few distinct
+ * objects whose data is shared by all objects of that class.
+ *
+ * Bundle entries contain compressible data that is generated while writing,
+ * so data areas of multiple gigabytes don't require the same amount of memory
+ * or temporary files. UnityWeb and UnityRaw bundles are limited to 4 GiB.
+ *
+ * The same parameters and seed always produce the same files.
+ *
+ * @author Nico Bergemann <barracuda415 at yahoo.de>
+ */
+public class SyntheticFileGenerator {
+
+    private static final String UNITY_REVISION = "5.3.4f1";
+
+    // primitive field types and sizes, the names are in the common strings
+    private static final String[] PRIMITIVE_TYPES = {"int", "float", "bool", "UInt8", "SInt64"};
+    private static final int[] PRIMITIVE_SIZES = {4, 4, 1, 1, 8};
+
+    @Parameter(
+        names = {"-o", "--output"},
+        description = "Output file.",
+        required = true
+    )
+    private String output;
+
+    @Parameter(
+        names = {"-t", "--type"},
+        description = "Type of the generated file: serialized or bundle."
+    )
+    private String type = "serialized";
+
+    @Parameter(
+        names = {"-s", "--seed"},
+        description = "Seed for the random data."
+    )
+    private long seed = 42;
+
+    @Parameter(
+        names = {"--objects"},
+        description = "Number of objects in serialized files."
+    )
+    private int numObjects = 1000;
+
+    @Parameter(
+        names = {"--classes"},
+        description = "Number of classes in serialized files."
+    )
+    private int numClasses = 16;
+
+    @Parameter(
+        names = {"--fields"},
+        description = "Number of fields per class and struct."
+    )
+    private int numFields = 24;
+
+    @Parameter(
+        names = {"--depth"},
+        description = "Nesting depth of the type trees, 1 for classes without structs."
+    )
+    private int depth = 1;
+
+    @Parameter(
+        names = {"--array-length"},
+        description = "Maximum number of elements of strings and arrays in objects."
+    )
+    private int maxArrayLength = 16;
+
+    @Parameter(
+        names = {"--variants"},
+        description = "Number of distinct objects per class."
+    )
+    private int variants = 16;
+
+    @Parameter(
+        names = {"--entries"},
+        description = "Number of bundle entries."
+    )
+    private int numEntries = 8;
+
+    @Parameter(
+        names = {"--entry-size"},
+        description = "Size of each bundle entry in bytes."
+    )
+    private long entrySize = 1 << 20;
+
+    @Parameter(
+        names = {"-c", "--compression"},
+        description = "Bundle compression: lzma (UnityWeb), lz4 (UnityFS) or raw (UnityRaw)."
+    )
+    private String compression = "lz4";
+
+    @Parameter(
+        names = {"-h", "--help"},
+        description = "Print usage.",
+        help = true
+    )
+    private boolean help;
+
+    public static void main(String[] args) throws IOException {
+        SyntheticFileGenerator generator = new SyntheticFileGenerator();
+        JCommander jc = new JCommander(generator);
+        jc.setProgramName(SyntheticFileGenerator.class.getName());
+
+        try {
+            jc.parse(args);
+        } catch (ParameterException ex) {
+            System.err.println(ex.getMessage());
+            jc.usage();
+            System.exit(1);
+        }
+
+        if (generator.help) {
+            jc.usage();
+            return;
+        }
+
+        Path file = Paths.get(generator.output);
+        long start = System.nanoTime();
+
+        switch (generator.type) {
+            case "serialized":
+                generator.writeSerializedFile(file);
+                break;
+            case "bundle":
+                generator.writeBundle(file);
+                break;
+            default:
+                System.err.println("Unknown file type " + generator.type);
+                System.exit(1);
+        }
+
+        System.out.printf("Wrote %s with %d bytes in %.1f s%n", file, Files.size(file),
+                (System.nanoTime() - start) / 1e9);
+    }
+
+    public long seed() {
+        return seed;
+    }
+
+    public void seed(long seed) {
+        this.seed = seed;
+    }
+
+    public int numObjects() {
+        return numObjects;
+    }
+
+    public void numObjects(int numObjects) {
+        this.numObjects = numObjects;
+    }
+
+    public int numClasses() {
+        return numClasses;
+    }
+
+    public void numClasses(int numClasses) {
+        this.numClasses = numClasses;
+    }
+
+    public int numFields() {
+        return numFields;
+    }
+
+    public void numFields(int numFields) {
+        this.numFields = numFields;
+    }
+
+    public int depth() {
+        return depth;
+    }
+
+    public void depth(int depth) {
+        this.depth = depth;
+    }
+
+    public int maxArrayLength() {
+        return maxArrayLength;
+    }
+
+    public void maxArrayLength(int maxArrayLength) {
+        this.maxArrayLength = maxArrayLength;
+    }
+
+    public int variants() {
+        return variants;
+    }
+
+    public void variants(int variants) {
+        this.variants = variants;
+    }
+
+    public int numEntries() {
+        return numEntries;
+    }
+
+    public void numEntries(int numEntries) {
+        this.numEntries = numEntries;
+    }
+
+    public long entrySize() {
+        return entrySize;
+    }
+
+    public void entrySize(long entrySize) {
+        this.entrySize = entrySize;
+    }
+
+    public String compression() {
+        return compression;
+    }
+
+    public void compression(String compression) {
+        this.compression = compression;
+    }
+
+    /**
+     * Creates an embedded Unity 5 type tree with the configured classes.
+     */
+    public TypeTreeV3<TypeV2> typeTree() {
+        Random rand = new Random(seed);
+
+        TypeTreeV3<TypeV2> typeTree = new TypeTreeV3<>(TypeV2.class);
+        typeTree.revision(new UnityVersion(UNITY_REVISION));
+        typeTree.embedded(true);
+
+        for (int i = 0; i < numClasses; i++) {
+            int classID = i + 1;
+
+            TypeRoot<TypeV2> typeRoot = new TypeRoot<>();
+            typeRoot.classID(classID);
+            typeRoot.oldTypeHash(new UnityHash128());
+            typeRoot.nodes(structNode("Class" + classID, "Base", depth, rand, new int[1]));
+
+            typeTree.typeMap().put(classID, typeRoot);
+        }
+
+        return typeTree;
+    }
+
+    private Node<TypeV2> structNode(String typeName, String fieldName, int level,
+            Random rand, int[] index) {
+        Node<TypeV2> node = new Node<>(type(typeName, fieldName, -1, index));
+
+        for (int i = 0; i < numFields; i++) {
+            String name = "m_Field" + i;
+
+            // the last field of each level holds the next nested struct
+            if (level > 1 && i == numFields - 1) {
+                node.add(structNode(typeName + "_Struct" + i, name, level - 1, rand, index));
+                continue;
+            }
+
+            int kind = rand.nextInt(10);
+            if (kind < 7) {
+                int primitive = rand.nextInt(PRIMITIVE_TYPES.length);
+                node.add(new Node<>(type(PRIMITIVE_TYPES[primitive], name,
+                        PRIMITIVE_SIZES[primitive], index)));
+            } else if (kind < 9) {
+                int primitive = rand.nextInt(PRIMITIVE_TYPES.length);
+                node.add(arrayNode("vector", name, PRIMITIVE_TYPES[primitive],
+                        PRIMITIVE_SIZES[primitive], index));
+            } else {
+                node.add(arrayNode("string", name, "char", 1, index));
+            }
+        }
+
+        return node;
+    }
+
+    private Node<TypeV2> arrayNode(String typeName, String fieldName,
+            String elementType, int elementSize, int[] index) {
+        Node<TypeV2> node = new Node<>(type(typeName, fieldName, -1, index));
+
+        TypeV2 arrayType = type("Array", "Array", -1, index);
+        arrayType.isArray(true);
+        arrayType.metaFlag(Type.FLAG_FORCE_ALIGN);
+
+        Node<TypeV2> arrayNode = new Node<>(arrayType);
+        arrayNode.add(new Node<>(type("int", "size", 4, index)));
+        arrayNode.add(new Node<>(type(elementType, "data", elementSize, index)));
+        node.add(arrayNode);
+
+        return node;
+    }
+
+    private static TypeV2 type(String typeName, String fieldName, int size, int[] index) {
+        TypeV2 type = new TypeV2();
+        type.typeName(typeName);
+        type.fieldName(fieldName);
+        type.size(size);
+        type.index(index[0]++);
+        type.version(1);
+        return type;
+    }
+
+    /**
+     * Returns object data for the given type tree, with random array lengths
+     * and values.
+     */
+    private ByteBuffer objectData(Node<TypeV2> node, Random rand) {
+        ByteBuffer bb = ByteBuffer.allocate(maxDataSize(node));
+        bb.order(ByteOrder.LITTLE_ENDIAN);
+        writeValue(bb, node, rand);
+        bb.flip();
+        return bb.slice();
+    }
+
+    private int maxDataSize(Node<TypeV2> node) {
+        TypeV2 type = node.data();
+        int size;
+        if (type.isArray()) {
+            size = 4 + maxArrayLength * maxDataSize(arrayElement(node));
+        } else if (node.isEmpty()) {
+            size = type.size();
+        } else {
+            size = 0;
+            for (Node<TypeV2> child : node) {
+                size += maxDataSize(child);
+            }
+        }
+
+        if ((type.metaFlag() & Type.FLAG_FORCE_ALIGN) != 0) {
+            size += 3;
+        }
+
+        return size;
+    }
+
+    private void writeValue(ByteBuffer bb, Node<TypeV2> node, Random rand) {
+        TypeV2 type = node.data();
+        if (type.isArray()) {
+            Node<TypeV2> element = arrayElement(node);
+            int length = rand.nextInt(maxArrayLength + 1);
+            bb.putInt(length);
+            for (int i = 0; i < length; i++) {
+                writeValue(bb, element, rand);
+            }
+        } else if (node.isEmpty()) {
+            writePrimitive(bb, type, rand);
+        } else {
+            for (Node<TypeV2> child : node) {
+                writeValue(bb, child, rand);
+            }
+        }
+
+        if ((type.metaFlag() & Type.FLAG_FORCE_ALIGN) != 0) {
+            bb.position((bb.position() + 3) & ~3);
+        }
+    }
+
+    private static void writePrimitive(ByteBuffer bb, TypeV2 type, Random rand) {
+        // use small values, like most values in real assets
+        switch (type.typeName()) {
+            case "bool":
+                bb.put((byte) rand.nextInt(2));
+                break;
+            case "char":
+                bb.put((byte) ('a' + rand.nextInt(26)));
+                break;
+            case "UInt8":
+                bb.put((byte) rand.nextInt());
+                break;
+            case "int":
+                bb.putInt(rand.nextInt(1000));
+                break;
+            case "float":
+                bb.putFloat(rand.nextFloat());
+                break;
+            case "SInt64":
+                bb.putLong(rand.nextInt(1000000));
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported type " + type.typeName());
+        }
+    }
+
+    private static Node<TypeV2> arrayElement(Node<TypeV2> arrayNode) {
+        // array nodes contain the size field followed by the element type
+        Iterator<Node<TypeV2>> it = arrayNode.iterator();
+        it.next();
+        return it.next();
+    }
+
+    /**
+     * Writes a Unity 5 serialized file with the configured objects and
+     * classes.
+     */
+    public void writeSerializedFile(Path file) throws IOException {
+        Random rand = new Random(seed);
+
+        SerializedFile serialized = new SerializedFile();
+        serialized.header().version(15);
+
+        TypeTreeV3<TypeV2> typeTree = typeTree();
+
+        SerializedFileMetadata metadata = serialized.metadata();
+        metadata.typeTree(typeTree);
+        ObjectInfoTableV2<ObjectInfoV3> objectInfoTable = new ObjectInfoTableV2<>(ObjectInfoV3.class);
+        metadata.objectInfoTable(objectInfoTable);
+        metadata.objectIDTable(new ObjectIdentifierTable());
+        metadata.externals(new FileIdentifierTable<>(FileIdentifierV2.class));
+
+        // distinct objects per class
+        List<ByteBuffer[]> classData = new ArrayList<>();
+        for (TypeRoot<TypeV2> typeRoot : typeTree.typeMap().values()) {
+            ByteBuffer[] data = new ByteBuffer[variants];
+            for (int i = 0; i < variants; i++) {
+                data[i] = objectData(typeRoot.nodes(), rand);
+            }
+            classData.add(data);
+        }
+
+        for (int i = 0; i < numObjects; i++) {
+            long pathID = i + 1;
+            int classIndex = i % numClasses;
+            int classID = classIndex + 1;
+
+            ObjectInfoV3 info = new ObjectInfoV3();
+            info.typeID(classID);
+            info.classID(classID);
+            objectInfoTable.infoMap().put(pathID, info);
+
+            ByteBuffer[] data = classData.get(classIndex);
+
+            SerializedObjectData object = new SerializedObjectData(pathID);
+            object.info(info);
+            object.buffer(data[rand.nextInt(data.length)].duplicate());
+            serialized.objectData().add(object);
+        }
+
+        try (SerializedFileWriter writer = new SerializedFileWriter(
+                DataWriters.forFile(file, CREATE, WRITE, TRUNCATE_EXISTING))) {
+            writer.write(serialized);
+        }
+    }
+
+    /**
+     * Writes a bundle with the configured number of entries and compression.
+     */
+    public void writeBundle(Path file) throws IOException {
+        Bundle bundle = new Bundle();
+        BundleHeader header = bundle.header();
+
+        switch (compression) {
+            case "lzma":
+                header.signature(BundleHeader.SIGNATURE_WEB);
+                break;
+            case "lz4":
+                header.signature(BundleHeader.SIGNATURE_FS);
+                break;
+            case "raw":
+                header.signature(BundleHeader.SIGNATURE_RAW);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown compression " + compression);
+        }
+
+        if (header.signature().equals(BundleHeader.SIGNATURE_FS)) {
+            header.streamVersion(6);
+            header.unityVersion(new UnityVersion("5.x.x"));
+        } else {
+            header.streamVersion(3);
+            header.unityVersion(new UnityVersion("3.x.x"));
+        }
+        header.unityRevision(new UnityVersion(UNITY_REVISION));
+
+        for (int i = 0; i < numEntries; i++) {
+            bundle.entries().add(new SyntheticEntry("CAB-" + i, entrySize, seed + i));
+        }
+
+        try (BundleWriter writer = new BundleWriter(file)) {
+            writer.compressionScheme(BundleBlockInfo.COMPRESSION_LZ4HC);
+            writer.write(bundle, (stage, complete) -> {});
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ ** 2026 October 18
+ **
+ ** The author disclaims copyright to this source code. In place of
+ ** a legal notice, here is a blessing:
+ **    May you do good and not evil.
+ **    May you find forgiveness for yourself and forgive others.
+ **    May you share freely, never taking more than you give.
+ */
+package info.ata4.disunity.benchmarks;
+
+import java.io.InputStream;
+import java.util.Random;
+
+/**
+ * Input stream for an arbitrary amount of synthetic data that compresses about
+ * as well as typical asset data. The data consists of records from a small
+ * pool of templates followed by a few random bytes and is generated while
+ * reading, so it doesn't need any memory or disk space regardless of its size.
+ * The same seed always produces the same data.
+ *
+ * @author Nico Bergemann <barracuda415 at yahoo.de>
+ */
+public class SyntheticInputStream extends InputStream {
+
+    private static final int NUM_TEMPLATES = 64;
+    private static final int RANDOM_BYTES = 4;
+
+    private final Random rand;
+    private final byte[][] templates = new byte[NUM_TEMPLATES][];
+    private final byte[] record;
+    private int recordPos;
+    private int recordSize;
+    private long remaining;
+
+    public SyntheticInputStream(long seed, long size) {
+        rand = new Random(seed);
+        remaining = size;
+
+        int maxTemplateSize = 0;
+        for (int i = 0; i < templates.length; i++) {
+            templates[i] = new byte[16 + rand.nextInt(112)];
+            rand.nextBytes(templates[i]);
+            maxTemplateSize = Math.max(maxTemplateSize, templates[i].length);
+        }
+
+        record = new byte[maxTemplateSize + RANDOM_BYTES];
+    }
+
+    /**
+     * Returns an array with synthetic data of the given size.
+     */
+    public static byte[] bytes(int size, long seed) {
+        byte[] data = new byte[size];
+        new SyntheticInputStream(seed, size).read(data, 0, size);
+        return data;
+    }
+
+    private void nextRecord() {
+        byte[] template = templates[rand.nextInt(templates.length)];
+        System.arraycopy(template, 0, record, 0, template.length);
+        for (int i = 0; i < RANDOM_BYTES; i++) {
+            record[template.length + i] = (byte) rand.nextInt();
+        }
+        recordSize = template.length + RANDOM_BYTES;
+        recordPos = 0;
+    }
+
+    @Override
+    public int read() {
+        byte[] b = new byte[1];
+        return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (len == 0) {
+            return 0;
+        }
+
+        if (remaining <= 0) {
+            return -1;
+        }
+
+        int count = (int) Math.min(len, remaining);
+        int end = off + count;
+        while (off < end) {
+            if (recordPos == recordSize) {
+                nextRecord();
+            }
+
+            int n = Math.min(end - off, recordSize - recordPos);
+            System.arraycopy(record, recordPos, b, off, n);
+            recordPos += n;
+            off += n;
+        }
+
+        remaining -= count;
+        return count;
+    }
+
+    @Override
+    public long skip(long n) {
+        // skipped data still has to be generated to keep the sequence
+        byte[] buffer = new byte[8192];
+        long skipped = 0;
+        while (skipped < n) {
+            int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (read == -1) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(Integer.MAX_VALUE, remaining);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ ** 2026 October 18
+ **
+ ** The author disclaims copyright to this source code. In place of
+ ** a legal notice, here is a blessing:
+ **    May you do good and not evil.
+ **    May you find forgiveness for yourself and forgive others.
+ **    May you share freely, never taking more than you give.
+ */
+package info.ata4.disunity.benchmarks;
+
+import info.ata4.io.DataReader;
+import info.ata4.io.DataReaders;
+import info.ata4.io.DataWriter;
+import info.ata4.io.DataWriters;
+import info.ata4.junity.serialize.typetree.TypeRoot;
+import info.ata4.junity.serialize.typetree.TypeTreeV3;
+import info.ata4.junity.serialize.typetree.TypeV2;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for reading embedded Unity 5 type trees.
+ *
+ * @author Nico Bergemann <barracuda415 at yahoo.de>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TypeTreeBenchmark {
+
+    @Param({"200"})
+    private int numClasses;
+
+    @Param({"40"})
+    private int numFields;
+
+    @Param({"1", "8"})
+    private int depth;
+
+    private byte[] data;
+
+    @Setup
+    public void setUp() throws IOException {
+        SyntheticFileGenerator generator = new SyntheticFileGenerator();
+        generator.numClasses(numClasses);
+        generator.numFields(numFields);
+        generator.depth(depth);
+
+        ByteBuffer bb = ByteBuffer.allocate(1 << 24);
+        DataWriter out = DataWriters.forByteBuffer(bb);
+        out.order(ByteOrder.LITTLE_ENDIAN);
+        out.writeStruct(generator.typeTree());
+        data = Arrays.copyOf(bb.array(), (int) out.position());
+    }
+
+    @Benchmark
+    public TypeTreeV3<TypeV2> read() throws IOException {
+        DataReader in = DataReaders.forByteBuffer(ByteBuffer.wrap(data));
+        in.order(ByteOrder.LITTLE_ENDIAN);
+
+        TypeTreeV3<TypeV2> typeTree = new TypeTreeV3<>(TypeV2.class);
+        in.readStruct(typeTree);
+        return typeTree;
+    }
+
+    @Benchmark
+    public TypeTreeV3<TypeV2> readNodes() throws IOException {
+        TypeTreeV3<TypeV2> typeTree = read();
+        typeTree.typeMap().values().forEach(TypeRoot::nodes);
+        return typeTree;
+    }
+}
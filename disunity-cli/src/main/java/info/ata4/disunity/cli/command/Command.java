@@ -13,6 +13,7 @@ import com.beust.jcommander.JCommander;
 import info.ata4.disunity.DisUnity;
 import info.ata4.junity.progress.Progress;
 import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.util.Objects;
 
 /**
@@ -25,6 +26,9 @@ public abstract class Command implements Runnable {
     private JCommander commander;
     private PrintWriter out;
 
+    // per-thread output buffer for commands that run tasks in parallel
+    private final ThreadLocal<PrintWriter> bufferedOut = new ThreadLocal<>();
+
     protected final Progress progress = (s, p) -> {
         if (s.isPresent()) {
             output().println(s.get());
@@ -68,6 +72,28 @@ public abstract class Command implements Runnable {
     }
 
     protected PrintWriter output() {
-        return out;
+        PrintWriter threadOut = bufferedOut.get();
+        return threadOut != null ? threadOut : out;
+    }
+
+    /**
+     * Runs a task with its output buffered and writes the output in one piece
+     * once the task is done, so that the output of tasks running in parallel
+     * doesn't interleave.
+     *
+     * @param task task to run
+     */
+    protected void runBuffered(Runnable task) {
+        StringWriter sw = new StringWriter();
+        bufferedOut.set(new PrintWriter(sw));
+        try {
+            task.run();
+        } finally {
+            bufferedOut.remove();
+            synchronized (out) {
+                out.print(sw);
+                out.flush();
+            }
+        }
     }
 }
@@ -11,8 +11,13 @@ package info.ata4.disunity.cli.command;
 
 import com.beust.jcommander.Parameter;
 import info.ata4.disunity.cli.converters.PathConverter;
+import info.ata4.log.LogUtils;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  *
@@ -20,6 +25,8 @@ import java.util.List;
  */
 public abstract class FileCommand extends Command {
 
+    private static final Logger L = LogUtils.getLogger();
+
     @Parameter(
         description = "<file> [file]...",
         converter = PathConverter.class,
@@ -27,9 +34,66 @@ public abstract class FileCommand extends Command {
     )
     private List<Path> filePaths;
 
+    @Parameter(
+        names = {"-j", "--threads"},
+        description = "Number of threads to use."
+    )
+    private int threads = 1;
+
+    private ForkJoinPool pool;
+
     @Override
     public void run() {
-        filePaths.forEach(this::runFile);
+        if (threads <= 1 || !parallelFiles()) {
+            filePaths.forEach(this::runFile);
+            return;
+        }
+
+        pool = new ForkJoinPool(threads);
+        try {
+            filePaths.forEach(file -> runTask(() -> runFile(file)));
+
+            // tasks may submit further tasks, so wait until all are done
+            pool.awaitQuiescence(Long.MAX_VALUE, TimeUnit.DAYS);
+        } finally {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+    /**
+     * Runs a task on the worker pool if files are processed in parallel or
+     * directly otherwise. The output of parallel tasks is buffered and written
+     * in one piece when the task is done.
+     *
+     * @param task task to run
+     */
+    protected void runTask(Runnable task) {
+        if (pool == null) {
+            task.run();
+            return;
+        }
+
+        pool.execute(() -> {
+            try {
+                runBuffered(task);
+            } catch (RuntimeException ex) {
+                L.log(Level.SEVERE, "Task failed", ex);
+            }
+        });
+    }
+
+    protected int threads() {
+        return threads;
+    }
+
+    /**
+     * Returns true if multiple files can be processed at the same time when
+     * more than one thread is requested. Commands that aren't thread-safe or
+     * use the threads in a different way can return false.
+     */
+    protected boolean parallelFiles() {
+        return true;
     }
 
     protected abstract void runFile(Path file);
@@ -44,7 +44,7 @@ public abstract class RecursiveFileCommand extends FileCommand {
             try {
                 Files.walk(file, maxDepth, FOLLOW_LINKS)
                     .filter(this::fileFilter)
-                    .forEach(this::runFileRecursive);
+                    .forEach(path -> runTask(() -> runFileRecursive(path)));
             } catch (IOException ex) {
                 L.log(Level.WARNING, "Can't walk directory " + file, ex);
             }
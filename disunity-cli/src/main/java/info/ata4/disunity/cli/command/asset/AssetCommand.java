@@ -9,11 +9,13 @@
  */
 package info.ata4.disunity.cli.command.asset;
 
+import com.beust.jcommander.Parameter;
 import info.ata4.disunity.cli.command.RecursiveFileCommand;
 import info.ata4.junity.bundle.Bundle;
 import info.ata4.junity.bundle.BundleEntry;
 import info.ata4.junity.bundle.BundleReader;
 import info.ata4.junity.bundle.BundleUtils;
+import info.ata4.junity.serialize.ObjectDataMode;
 import info.ata4.junity.serialize.SerializedFile;
 import info.ata4.junity.serialize.SerializedFileReader;
 import info.ata4.log.LogUtils;
@@ -33,11 +35,27 @@ public abstract class AssetCommand extends RecursiveFileCommand {
 
     private static final Logger L = LogUtils.getLogger();
 
+    @Parameter(
+        names = {"--checkpoints"},
+        description = "Save LZMA checkpoints of compressed bundles in sidecar files to speed up later runs."
+    )
+    private boolean checkpoints;
+
+    @Override
+    protected boolean fileFilter(Path file) {
+        return super.fileFilter(file) && !file.getFileName().toString()
+                .endsWith("." + BundleUtils.CHECKPOINT_EXT);
+    }
+
     @Override
     protected void runFileRecursive(Path file) {
         if (BundleUtils.isBundle(file)) {
             // file is a bundle, load serialized files from it
             try (BundleReader bundleReader = new BundleReader(file)) {
+                if (checkpoints) {
+                    bundleReader.checkpointFile(BundleUtils.checkpointFile(file));
+                }
+
                 Bundle bundle = bundleReader.read();
                 bundle.entries().stream()
                     .filter(not(BundleEntry::isLibrary))
@@ -45,6 +63,7 @@ public abstract class AssetCommand extends RecursiveFileCommand {
                     .forEach(uncheck(entry -> {
                         try (SerializedFileReader reader = new SerializedFileReader(
                                 BundleUtils.dataReaderForEntry(entry))) {
+                            reader.objectDataMode(objectDataMode());
                             SerializedFile serialized = reader.read();
                             runSerializedFile(file.resolve(entry.name()), serialized);
                         }
@@ -56,6 +75,7 @@ public abstract class AssetCommand extends RecursiveFileCommand {
         } else {
             // load file directly
             try (SerializedFileReader reader = new SerializedFileReader(file)) {
+                reader.objectDataMode(objectDataMode());
                 SerializedFile serialized = reader.read();
                 runSerializedFile(file, serialized);
             } catch (IOException ex) {
@@ -64,5 +84,9 @@ public abstract class AssetCommand extends RecursiveFileCommand {
         }
     }
 
+    protected ObjectDataMode objectDataMode() {
+        return ObjectDataMode.EAGER;
+    }
+
     protected abstract void runSerializedFile(Path file, SerializedFile serialized);
 }
@@ -13,6 +13,7 @@ import com.beust.jcommander.ParametersDelegate;
 import info.ata4.disunity.cli.OutputFormatDelegate;
 import info.ata4.disunity.cli.util.TableModel;
 import info.ata4.disunity.cli.util.TablePrinter;
+import info.ata4.junity.serialize.ObjectDataMode;
 import info.ata4.junity.serialize.SerializedFile;
 import java.nio.file.Path;
 
@@ -25,6 +26,12 @@ public abstract class AssetTableCommand extends AssetCommand {
     @ParametersDelegate
     private final OutputFormatDelegate outputFormat = new OutputFormatDelegate();
 
+    @Override
+    protected ObjectDataMode objectDataMode() {
+        // only the metadata is required
+        return ObjectDataMode.NONE;
+    }
+
     @Override
     protected void runSerializedFile(Path file, SerializedFile serialized) {
         TablePrinter tablePrinter = TablePrinter.fromOutputFormat(
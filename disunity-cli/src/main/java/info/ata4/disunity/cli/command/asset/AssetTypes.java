@@ -16,6 +16,7 @@ import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import info.ata4.disunity.cli.OutputFormatDelegate;
+import info.ata4.junity.serialize.ObjectDataMode;
 import info.ata4.junity.serialize.SerializedFile;
 import info.ata4.junity.serialize.typetree.Type;
 import info.ata4.junity.serialize.typetree.TypeTree;
@@ -35,6 +36,12 @@ public class AssetTypes extends AssetCommand {
     @ParametersDelegate
     private final OutputFormatDelegate outputFormat = new OutputFormatDelegate();
 
+    @Override
+    protected ObjectDataMode objectDataMode() {
+        // only the metadata is required
+        return ObjectDataMode.NONE;
+    }
+
     @Override
     protected void runSerializedFile(Path file, SerializedFile serialized) {
         TypeTree<? extends Type> typeTree = serialized.metadata().typeTree();
@@ -13,6 +13,7 @@ import com.beust.jcommander.Parameter;
 import com.beust.jcommander.Parameters;
 import info.ata4.io.buffer.ByteBufferUtils;
 import info.ata4.io.util.PathUtils;
+import info.ata4.junity.serialize.ObjectDataMode;
 import info.ata4.junity.serialize.SerializedFile;
 import info.ata4.junity.serialize.SerializedObjectData;
 import info.ata4.log.LogUtils;
@@ -43,6 +44,12 @@ public class AssetUnpack extends AssetCommand {
     )
     private int level = 1;
 
+    @Override
+    protected ObjectDataMode objectDataMode() {
+        // object data is only written as-is, so there's no need to copy it
+        return ObjectDataMode.MAPPED;
+    }
+
     @Override
     protected void runSerializedFile(Path file, SerializedFile asset) {
         try {
@@ -0,0 +1,34 @@
+/*
+ ** 2026 October 18
+ **
+ ** The author disclaims copyright to this source code. In place of
+ ** a legal notice, here is a blessing:
+ **    May you do good and not evil.
+ **    May you find forgiveness for yourself and forgive others.
+ **    May you share freely, never taking more than you give.
+ */
+package info.ata4.disunity.cli.command.bundle;
+
+import info.ata4.junity.bundle.BundleBlockInfo;
+
+/**
+ * Block compression schemes for packing UnityFS bundles.
+ *
+ * @author Nico Bergemann <barracuda415 at yahoo.de>
+ */
+public enum BundleCompression {
+    NONE(BundleBlockInfo.COMPRESSION_NONE),
+    LZMA(BundleBlockInfo.COMPRESSION_LZMA),
+    LZ4(BundleBlockInfo.COMPRESSION_LZ4),
+    LZ4HC(BundleBlockInfo.COMPRESSION_LZ4HC);
+
+    private final int scheme;
+
+    private BundleCompression(int scheme) {
+        this.scheme = scheme;
+    }
+
+    public int scheme() {
+        return scheme;
+    }
+}
@@ -18,6 +18,7 @@ import info.ata4.disunity.cli.util.TableBuilder;
 import info.ata4.disunity.cli.util.TableModel;
 import info.ata4.disunity.cli.util.TablePrinter;
 import info.ata4.junity.bundle.Bundle;
+import info.ata4.junity.bundle.BundleBlockInfo;
 import info.ata4.junity.bundle.BundleHeader;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -45,6 +46,10 @@ public class BundleInfo extends BundleCommand {
         List<TableModel> tables = new ArrayList<>();
         tables.add(new TableModel("Header", buildHeaderTable(bundle.header())));
 
+        if (!bundle.blockInfos().isEmpty()) {
+            tables.add(new TableModel("Blocks", buildBlockTable(bundle.blockInfos())));
+        }
+
         TablePrinter tablePrinter = TablePrinter.fromOutputFormat(outputFormat.get(), output());
         tablePrinter.file(file);
         tablePrinter.print(tables);
@@ -81,4 +86,14 @@ public class BundleInfo extends BundleCommand {
         return table.get();
     }
 
+    private Table<Integer, Integer, Object> buildBlockTable(List<BundleBlockInfo> blockInfos) {
+        TableBuilder table = new TableBuilder();
+        table.row("Uncompressed Size", "Compressed Size", "Flags");
+
+        blockInfos.forEach(block -> {
+            table.row(block.uncompressedSize(), block.compressedSize(), block.flags());
+        });
+
+        return table.get();
+    }
 }
@@ -19,6 +19,8 @@ import info.ata4.junity.bundle.BundleWriter;
 import info.ata4.log.LogUtils;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -40,6 +42,25 @@ public class BundlePack extends FileCommand {
     )
     private Path outFile;
 
+    @Parameter(
+        names = {"-c", "--compression"},
+        description = "Block compression for UnityFS bundles."
+    )
+    private BundleCompression compression = BundleCompression.LZ4HC;
+
+    @Parameter(
+        names = {"-b", "--block-size"},
+        description = "Uncompressed size of the blocks in UnityFS bundles in bytes."
+    )
+    private int blockSize = BundleWriter.DEFAULT_BLOCK_SIZE;
+
+    @Override
+    protected boolean parallelFiles() {
+        // all props files are packed to the same output file by default, so
+        // use the threads to compress the blocks of one bundle at a time
+        return false;
+    }
+
     @Override
     protected void runFile(Path file) {
         if (outFile == null) {
@@ -47,12 +68,26 @@ public class BundlePack extends FileCommand {
             outFile = file.getParent().resolve(fileName + ".unity3d");
         }
 
+        ExecutorService executor = null;
+
         Bundle bundle = new Bundle();
         try (BundleWriter bundleWriter = new BundleWriter(outFile)) {
             BundleProps.read(file, bundle);
+            bundleWriter.compressionScheme(compression.scheme());
+            bundleWriter.blockSize(blockSize);
+
+            if (threads() > 1) {
+                executor = new ForkJoinPool(threads());
+                bundleWriter.executor(executor);
+            }
+
             bundleWriter.write(bundle, progress);
         } catch (IOException ex) {
             L.log(Level.WARNING, "Can't pack asset bundle " + file, ex);
+        } finally {
+            if (executor != null) {
+                executor.shutdown();
+            }
         }
     }
 }
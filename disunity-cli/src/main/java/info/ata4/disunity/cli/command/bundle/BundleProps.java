@@ -69,7 +69,11 @@ class BundleProps {
         }
 
         BundleHeader header = bundle.header();
-        header.compressed(props.compressed);
+        if (props.streamVersion >= 6) {
+            header.signature(BundleHeader.SIGNATURE_FS);
+        } else {
+            header.compressed(props.compressed);
+        }
         header.streamVersion(props.streamVersion);
         header.unityVersion(new UnityVersion(props.unityVersion));
         header.unityRevision(new UnityVersion(props.unityRevision));
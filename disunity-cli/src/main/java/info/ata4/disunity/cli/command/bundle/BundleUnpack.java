@@ -15,20 +15,33 @@ import info.ata4.disunity.cli.command.FileCommand;
 import info.ata4.disunity.cli.converters.PathConverter;
 import info.ata4.io.util.PathUtils;
 import info.ata4.junity.bundle.Bundle;
+import info.ata4.junity.bundle.BundleEntry;
 import info.ata4.junity.bundle.BundleReader;
 import info.ata4.log.LogUtils;
+import info.ata4.util.io.FileRegion;
 import static info.ata4.util.function.IOConsumer.uncheck;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
 
 import java.nio.file.Paths;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 /**
  *
@@ -60,11 +73,39 @@ public class BundleUnpack extends FileCommand {
     )
     private boolean writeProp;
 
+    @Override
+    protected boolean parallelFiles() {
+        // use the threads to decompress the blocks of one bundle at a time
+        return false;
+    }
+
     @Override
     protected void runFile(Path file) {
+        ExecutorService executor = null;
+
         try (BundleReader bundleReader = new BundleReader(file)) {
             Bundle bundle = bundleReader.read();
 
+            List<BundleEntry> entries = bundle.entries()
+                .stream()
+                .filter(entry -> filename == null || entry.name().equals(filename))
+                .collect(Collectors.toList());
+
+            // entries of uncompressed and chunked bundles can be read
+            // independently from each other, which isn't possible for the
+            // single LZMA stream of compressed UnityWeb bundles
+            boolean parallel = threads() > 1 && !bundle.header().compressed();
+
+            if (parallel) {
+                executor = new ForkJoinPool(threads());
+
+                // decode all blocks up front in parallel if there's only one
+                // entry to extract, otherwise decode the entries in parallel
+                if (entries.size() == 1) {
+                    bundleReader.executor(executor);
+                }
+            }
+
             AtomicInteger done = new AtomicInteger();
             long total = bundle.entryInfos().size();
 
@@ -84,23 +125,32 @@ public class BundleUnpack extends FileCommand {
                 }
             }
 
-            try {
-                bundle.entries()
-                    .stream()
-                    .filter(entry -> filename == null || entry.name().equals(filename))
-                    .forEach(uncheck(entry -> {
-                        progress.update(Optional.of(entry.name()), done.getAndIncrement() / (double) total);
-                        Path entryFile = outputDir.resolve(entry.name());
-
-                        Files.createDirectories(entryFile.getParent());
-                        Files.copy(entry.inputStream(), entryFile, REPLACE_EXISTING);
-
-                        if (done.get() == total) {
-                            progress.update(Optional.empty(), 1);
+            if (parallel && entries.size() > 1) {
+                ExecutorService entryExecutor = executor;
+                List<CompletableFuture<Void>> tasks = entries.stream()
+                    .map(entry -> CompletableFuture.runAsync(() -> {
+                        try {
+                            extractEntry(entry, done, total);
+                        } catch (IOException ex) {
+                            throw new UncheckedIOException(ex);
                         }
-                }));
-            } catch (UncheckedIOException ex) {
-                throw ex.getCause();
+                    }, entryExecutor))
+                    .collect(Collectors.toList());
+
+                try {
+                    CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0])).join();
+                } catch (CompletionException ex) {
+                    if (ex.getCause() instanceof UncheckedIOException) {
+                        throw ((UncheckedIOException) ex.getCause()).getCause();
+                    }
+                    throw ex;
+                }
+            } else {
+                try {
+                    entries.forEach(uncheck(entry -> extractEntry(entry, done, total)));
+                } catch (UncheckedIOException ex) {
+                    throw ex.getCause();
+                }
             }
 
             if (writeProp && filename == null) {
@@ -110,6 +160,39 @@ public class BundleUnpack extends FileCommand {
             }
         } catch (IOException ex) {
             L.log(Level.WARNING, "Can't unpack asset bundle " + file, ex);
+        } finally {
+            if (executor != null) {
+                executor.shutdown();
+            }
+        }
+    }
+
+    private void extractEntry(BundleEntry entry, AtomicInteger done, long total) throws IOException {
+        // progress updates are serialized so that the reported values never
+        // go backwards when entries are extracted in parallel
+        synchronized (progress) {
+            progress.update(Optional.of(entry.name()), done.get() / (double) total);
+        }
+
+        Path entryFile = outputDir.resolve(entry.name());
+        Files.createDirectories(entryFile.getParent());
+
+        Optional<FileRegion> region = entry.fileRegion();
+        if (region.isPresent()) {
+            // copy uncompressed data directly from the bundle file
+            try (FileChannel fc = FileChannel.open(entryFile, CREATE, WRITE, TRUNCATE_EXISTING)) {
+                region.get().transferTo(fc);
+            }
+        } else {
+            try (InputStream is = entry.inputStream()) {
+                Files.copy(is, entryFile, REPLACE_EXISTING);
+            }
+        }
+
+        synchronized (progress) {
+            if (done.incrementAndGet() == total) {
+                progress.update(Optional.empty(), 1);
+            }
         }
     }
 }
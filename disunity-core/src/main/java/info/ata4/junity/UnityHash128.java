@@ -13,6 +13,7 @@ import info.ata4.io.DataReader;
 import info.ata4.io.DataWriter;
 import info.ata4.io.Struct;
 import java.io.IOException;
+import java.util.Arrays;
 import javax.xml.bind.DatatypeConverter;
 
 /**
@@ -37,6 +38,23 @@ public class UnityHash128 implements Struct {
         out.writeBytes(hash);
     }
 
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(hash);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        final UnityHash128 other = (UnityHash128) obj;
+        return Arrays.equals(this.hash, other.hash);
+    }
+
     @Override
     public String toString() {
         return DatatypeConverter.printHexBinary(hash);
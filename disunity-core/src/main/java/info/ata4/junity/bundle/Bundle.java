@@ -9,6 +9,7 @@
  */
 package info.ata4.junity.bundle;
 
+import info.ata4.junity.UnityHash128;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -21,6 +22,8 @@ public class Bundle {
     private final BundleHeader header = new BundleHeader();
     private final List<BundleEntry> entries = new ArrayList<>();
     private final List<BundleEntryInfo> entryInfos = new ArrayList<>();
+    private final List<BundleBlockInfo> blockInfos = new ArrayList<>();
+    private final UnityHash128 dataHash = new UnityHash128();
 
     public BundleHeader header() {
         return header;
@@ -33,4 +36,12 @@ public class Bundle {
     public List<BundleEntryInfo> entryInfos() {
         return entryInfos;
     }
+
+    public List<BundleBlockInfo> blockInfos() {
+        return blockInfos;
+    }
+
+    public UnityHash128 dataHash() {
+        return dataHash;
+    }
 }
@@ -0,0 +1,151 @@
+/*
+ ** 2026 October 18
+ **
+ ** The author disclaims copyright to this source code. In place of
+ ** a legal notice, here is a blessing:
+ **    May you do good and not evil.
+ **    May you find forgiveness for yourself and forgive others.
+ **    May you share freely, never taking more than you give.
+ */
+package info.ata4.junity.bundle;
+
+import info.ata4.util.function.IOFunction;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size-bounded LRU cache for decompressed bundle blocks, keyed by bundle and
+ * block index. A single cache can be shared by multiple bundle readers to put
+ * a global limit on the memory used for decompressed data.
+ *
+ * @author Nico Bergemann <barracuda415 at yahoo.de>
+ */
+public class BundleBlockCache {
+
+    public static final long DEFAULT_MAX_SIZE = 1 << 26;
+
+    // access-ordered, so iteration starts at the least recently used block
+    private final Map<Key, ByteBuffer> blocks = new LinkedHashMap<>(16, 0.75f, true);
+    private final long maxSize;
+    private long size;
+    private long hits;
+    private long misses;
+
+    public BundleBlockCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public BundleBlockCache(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public long maxSize() {
+        return maxSize;
+    }
+
+    public synchronized long size() {
+        return size;
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    public synchronized void clear() {
+        blocks.clear();
+        size = 0;
+    }
+
+    ByteBuffer get(Object owner, int index, IOFunction<Integer, ByteBuffer> loader) throws IOException {
+        Key key = new Key(owner, index);
+
+        synchronized (this) {
+            ByteBuffer block = blocks.get(key);
+            if (block != null) {
+                hits++;
+                return block;
+            }
+            misses++;
+        }
+
+        // decompress without holding the lock so that other threads can still
+        // use the cache in the meantime
+        ByteBuffer block = loader.apply(index);
+        put(key, block);
+        return block;
+    }
+
+    void put(Object owner, int index, ByteBuffer block) {
+        put(new Key(owner, index), block);
+    }
+
+    /**
+     * Returns true if the block is small enough to be cached. Larger blocks
+     * would evict everything else, so they're never cached.
+     */
+    boolean fits(ByteBuffer block) {
+        return block.capacity() <= maxSize;
+    }
+
+    private synchronized void put(Key key, ByteBuffer block) {
+        if (!fits(block)) {
+            return;
+        }
+
+        ByteBuffer previous = blocks.put(key, block);
+        if (previous != null) {
+            size -= previous.capacity();
+        }
+        size += block.capacity();
+
+        // evict least recently used blocks
+        Iterator<ByteBuffer> it = blocks.values().iterator();
+        while (size > maxSize && it.hasNext()) {
+            size -= it.next().capacity();
+            it.remove();
+        }
+    }
+
+    synchronized void invalidate(Object owner) {
+        Iterator<Map.Entry<Key, ByteBuffer>> it = blocks.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, ByteBuffer> entry = it.next();
+            if (entry.getKey().owner == owner) {
+                size -= entry.getValue().capacity();
+                it.remove();
+            }
+        }
+    }
+
+    private static class Key {
+
+        private final Object owner;
+        private final int index;
+
+        private Key(Object owner, int index) {
+            this.owner = owner;
+            this.index = index;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(owner) + index;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return owner == other.owner && index == other.index;
+        }
+    }
+}
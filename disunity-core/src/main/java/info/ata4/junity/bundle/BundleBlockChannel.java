@@ -0,0 +1,139 @@
+/*
+ ** 2026 October 18
+ **
+ ** The author disclaims copyright to this source code. In place of
+ ** a legal notice, here is a blessing:
+ **    May you do good and not evil.
+ **    May you find forgiveness for yourself and forgive others.
+ **    May you share freely, never taking more than you give.
+ */
+package info.ata4.junity.bundle;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * Read-only seekable channel for a range of the uncompressed data of a
+ * block-based bundle. Blocks are decompressed on demand when the position
+ * moves into them and are shared with other channels and streams through the
+ * block cache of the reader.
+ *
+ * @author Nico Bergemann <barracuda415 at yahoo.de>
+ */
+class BundleBlockChannel implements SeekableByteChannel {
+
+    private final BundleBlockReader reader;
+    private final long offset;
+    private final long size;
+    private long position;
+    private boolean open = true;
+
+    private ByteBuffer block;
+    private long blockOffset;
+
+    BundleBlockChannel(BundleBlockReader reader, long offset, long size) {
+        this.reader = reader;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    private boolean insideBlock(long dataPos) {
+        return block != null && dataPos >= blockOffset
+                && dataPos < blockOffset + block.limit();
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        ensureOpen();
+
+        if (position >= size) {
+            return -1;
+        }
+
+        int total = 0;
+        while (dst.hasRemaining() && position < size) {
+            long dataPos = offset + position;
+
+            // fetch the block containing the current position if required
+            if (!insideBlock(dataPos)) {
+                int blockIndex = reader.blockIndex(dataPos);
+                blockOffset = reader.blockOffset(blockIndex);
+                block = reader.block(blockIndex);
+
+                // the entry must not end before its size, so a short block
+                // means the block table or the entry table is wrong
+                if (!insideBlock(dataPos)) {
+                    throw new BundleException("Block " + blockIndex
+                            + " ends before data offset " + dataPos);
+                }
+            }
+
+            int blockPos = (int) (dataPos - blockOffset);
+            int count = (int) Math.min(Math.min(dst.remaining(),
+                    block.limit() - blockPos), size - position);
+
+            ByteBuffer src = block.duplicate();
+            src.position(blockPos);
+            src.limit(blockPos + count);
+            dst.put(src);
+
+            position += count;
+            total += count;
+        }
+
+        // zero if dst had no space left, the end of the entry is handled above
+        return total;
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    @Override
+    public SeekableByteChannel position(long newPosition) throws IOException {
+        ensureOpen();
+        if (newPosition < 0) {
+            throw new IllegalArgumentException();
+        }
+        position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        ensureOpen();
+        return size;
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long size) throws IOException {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() throws IOException {
+        open = false;
+        block = null;
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+    }
+}
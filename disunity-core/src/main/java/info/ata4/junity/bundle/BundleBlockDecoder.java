@@ -0,0 +1,90 @@
+/*
+ ** 2026 October 18
+ **
+ ** The author disclaims copyright to this source code. In place of
+ ** a legal notice, here is a blessing:
+ **    May you do good and not evil.
+ **    May you find forgiveness for yourself and forgive others.
+ **    May you share freely, never taking more than you give.
+ */
+package info.ata4.junity.bundle;
+
+import static info.ata4.junity.bundle.BundleBlockInfo.*;
+import info.ata4.util.lz4.LZ4Exception;
+import info.ata4.util.lz4.LZ4Utils;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import net.contrapunctus.lzma.LzmaInputStream;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Decompressor for single UnityFS storage blocks and data headers.
+ *
+ * @author Nico Bergemann <barracuda415 at yahoo.de>
+ */
+class BundleBlockDecoder {
+
+    // LZMA properties and dictionary size
+    private static final int LZMA_PROPS_SIZE = 5;
+
+    private BundleBlockDecoder() {
+    }
+
+    static void decode(int scheme, byte[] src, int srcLen, byte[] dst, int dstLen)
+            throws IOException {
+        switch (scheme) {
+            case COMPRESSION_NONE:
+                if (srcLen != dstLen) {
+                    throw new BundleException("Size mismatch for uncompressed block");
+                }
+                System.arraycopy(src, 0, dst, 0, dstLen);
+                break;
+
+            case COMPRESSION_LZMA:
+                decodeLzma(src, srcLen, dst, dstLen);
+                break;
+
+            case COMPRESSION_LZ4:
+            case COMPRESSION_LZ4HC:
+                int read;
+                try {
+                    read = LZ4Utils.fastDecompressor().decompress(src, 0, dst, 0, dstLen);
+                } catch (LZ4Exception | ArrayIndexOutOfBoundsException ex) {
+                    throw new BundleException("Corrupt LZ4 block: " + ex.getMessage());
+                }
+
+                // the block must end exactly where the compressed data ends
+                if (read != srcLen) {
+                    throw new BundleException("Corrupt LZ4 block: read " + read
+                            + " of " + srcLen + " compressed bytes");
+                }
+                break;
+
+            default:
+                throw new BundleException("Unsupported compression scheme " + scheme);
+        }
+    }
+
+    private static void decodeLzma(byte[] src, int srcLen, byte[] dst, int dstLen)
+            throws IOException {
+        // UnityFS blocks only store the LZMA properties, so prepend the
+        // uncompressed size to get a regular .lzma header
+        ByteBuffer header = ByteBuffer.allocate(LZMA_PROPS_SIZE + 8);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        header.put(src, 0, LZMA_PROPS_SIZE);
+        header.putLong(dstLen);
+
+        InputStream is = new SequenceInputStream(
+            new ByteArrayInputStream(header.array()),
+            new ByteArrayInputStream(src, LZMA_PROPS_SIZE, srcLen - LZMA_PROPS_SIZE)
+        );
+
+        try (InputStream lzma = new LzmaInputStream(is)) {
+            IOUtils.readFully(lzma, dst, 0, dstLen);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ ** 2026 October 18
+ **
+ ** The author disclaims copyright to this source code. In place of
+ ** a legal notice, here is a blessing:
+ **    May you do good and not evil.
+ **    May you find forgiveness for yourself and forgive others.
+ **    May you share freely, never taking more than you give.
+ */
+package info.ata4.junity.bundle;
+
+import static info.ata4.junity.bundle.BundleBlockInfo.*;
+import info.ata4.io.lzma.LzmaEncoderProps;
+import info.ata4.util.lz4.LZ4Compressor;
+import info.ata4.util.lz4.LZ4Utils;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import net.contrapunctus.lzma.LzmaOutputStream;
+
+/**
+ * Compressor for single UnityFS storage blocks, counterpart of
+ * {@link BundleBlockDecoder}.
+ *
+ * @author Nico Bergemann <barracuda415 at yahoo.de>
+ */
+class BundleBlockEncoder {
+
+    // LZMA properties and dictionary size
+    private static final int LZMA_PROPS_SIZE = 5;
+
+    // size of the .lzma header that isn't stored in UnityFS blocks
+    private static final int LZMA_HEADER_SIZE = LZMA_PROPS_SIZE + 8;
+
+    private static final int LZMA_MIN_DICT_SIZE = 1 << 12;
+    private static final int LZMA_MAX_DICT_SIZE = 1 << 23;
+
+    private BundleBlockEncoder() {
+    }
+
+    static void checkScheme(int scheme) {
+        switch (scheme) {
+            case COMPRESSION_NONE:
+            case COMPRESSION_LZMA:
+            case COMPRESSION_LZ4:
+            case COMPRESSION_LZ4HC:
+                return;
+
+            default:
+                throw new IllegalArgumentException("Unsupported compression scheme for writing: " + scheme);
+        }
+    }
+
+    /**
+     * Returns the minimum size of the output array for a block.
+     */
+    static int maxEncodedLength(int scheme, int srcLen) {
+        checkScheme(scheme);
+        switch (scheme) {
+            case COMPRESSION_LZ4:
+            case COMPRESSION_LZ4HC:
+                return compressor(scheme).maxCompressedLength(srcLen);
+
+            default:
+                // LZMA blocks that don't get smaller are stored instead
+                return srcLen;
+        }
+    }
+
+    /**
+     * Compresses a block and returns the size of the compressed data or -1 if
+     * it doesn't fit into the output array.
+     */
+    static int encode(int scheme, byte[] src, int srcLen, byte[] dst) throws IOException {
+        checkScheme(scheme);
+        switch (scheme) {
+            case COMPRESSION_LZMA:
+                return encodeLzma(src, srcLen, dst);
+
+            case COMPRESSION_LZ4:
+            case COMPRESSION_LZ4HC:
+                return compressor(scheme).compress(src, 0, srcLen, dst, 0);
+
+            default:
+                if (srcLen > dst.length) {
+                    return -1;
+                }
+                System.arraycopy(src, 0, dst, 0, srcLen);
+                return srcLen;
+        }
+    }
+
+    private static int encodeLzma(byte[] src, int srcLen, byte[] dst) throws IOException {
+        LzmaEncoderProps props = new LzmaEncoderProps();
+        props.setDictionarySize(Math.max(LZMA_MIN_DICT_SIZE, Math.min(LZMA_MAX_DICT_SIZE, srcLen)));
+        props.setNumFastBytes(273); // maximum
+        // the decoder knows the block size, so there's no need for an end
+        // marker
+        props.setUncompressedSize(srcLen);
+        props.setEndMarkerMode(false);
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(srcLen / 2 + LZMA_HEADER_SIZE);
+        try (OutputStream os = new LzmaOutputStream(bos, props)) {
+            os.write(src, 0, srcLen);
+        }
+
+        // UnityFS blocks only store the LZMA properties, so remove the
+        // uncompressed size from the .lzma header
+        byte[] lzma = bos.toByteArray();
+        int size = lzma.length - (LZMA_HEADER_SIZE - LZMA_PROPS_SIZE);
+        if (size > dst.length) {
+            return -1;
+        }
+
+        System.arraycopy(lzma, 0, dst, 0, LZMA_PROPS_SIZE);
+        System.arraycopy(lzma, LZMA_HEADER_SIZE, dst, LZMA_PROPS_SIZE, size - LZMA_PROPS_SIZE);
+        return size;
+    }
+
+    private static LZ4Compressor compressor(int scheme) {
+        return scheme == COMPRESSION_LZ4HC ? LZ4Utils.highCompressor() : LZ4Utils.fastCompressor();
+    }
+}
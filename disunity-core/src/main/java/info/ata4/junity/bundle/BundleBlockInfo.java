@@ -0,0 +1,96 @@
+/*
+ ** 2026 October 18
+ **
+ ** The author disclaims copyright to this source code. In place of
+ ** a legal notice, here is a blessing:
+ **    May you do good and not evil.
+ **    May you find forgiveness for yourself and forgive others.
+ **    May you share freely, never taking more than you give.
+ */
+package info.ata4.junity.bundle;
+
+import info.ata4.io.DataReader;
+import info.ata4.io.DataWriter;
+import info.ata4.io.Struct;
+import java.io.IOException;
+
+/**
+ * UnityFS storage block info. The data area of a UnityFS bundle is split into
+ * blocks that are compressed independently from each other.
+ *
+ * @author Nico Bergemann <barracuda415 at yahoo.de>
+ * @unity StorageBlock
+ */
+public class BundleBlockInfo implements Struct {
+
+    public static final int COMPRESSION_NONE = 0;
+    public static final int COMPRESSION_LZMA = 1;
+    public static final int COMPRESSION_LZ4 = 2;
+    public static final int COMPRESSION_LZ4HC = 3;
+
+    // size of the block data after decompression
+    private long uncompressedSize;
+
+    // size of the block data as stored in the file
+    private long compressedSize;
+
+    // flags
+    //   0x40 = streamed
+    //   0x3f = low six bits are the compression method
+    private int flags;
+
+    public long uncompressedSize() {
+        return uncompressedSize;
+    }
+
+    public void uncompressedSize(long uncompressedSize) {
+        this.uncompressedSize = uncompressedSize;
+    }
+
+    public long compressedSize() {
+        return compressedSize;
+    }
+
+    public void compressedSize(long compressedSize) {
+        this.compressedSize = compressedSize;
+    }
+
+    public int flags() {
+        return flags;
+    }
+
+    public void flags(int flags) {
+        this.flags = flags;
+    }
+
+    public int compressionScheme() {
+        return flags & 0x3f;
+    }
+
+    public void compressionScheme(int scheme) {
+        flags = (flags & ~0x3f) | (scheme & 0x3f);
+    }
+
+    public boolean compressed() {
+        return compressionScheme() != COMPRESSION_NONE;
+    }
+
+    @Override
+    public void read(DataReader in) throws IOException {
+        uncompressedSize = in.readUnsignedInt();
+        compressedSize = in.readUnsignedInt();
+        flags = in.readUnsignedShort();
+    }
+
+    @Override
+    public void write(DataWriter out) throws IOException {
+        out.writeUnsignedInt(uncompressedSize);
+        out.writeUnsignedInt(compressedSize);
+        out.writeShort((short) flags);
+    }
+
+    @Override
+    public String toString() {
+        return compressedSize + " -> " + uncompressedSize + " (" + compressionScheme() + ")";
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ ** 2026 October 18
+ **
+ ** The author disclaims copyright to this source code. In place of
+ ** a legal notice, here is a blessing:
+ **    May you do good and not evil.
+ **    May you find forgiveness for yourself and forgive others.
+ **    May you share freely, never taking more than you give.
+ */
+package info.ata4.junity.bundle;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Input stream for a range of the uncompressed data of a block-based bundle.
+ * Blocks are decompressed on demand while reading, skipped data is never
+ * decompressed.
+ *
+ * @author Nico Bergemann <barracuda415 at yahoo.de>
+ */
+class BundleBlockInputStream extends InputStream {
+
+    private final BundleBlockReader reader;
+    private final long end;
+    private long position;
+
+    private ByteBuffer block;
+    private int blockIndex = -1;
+    private long blockOffset;
+
+    BundleBlockInputStream(BundleBlockReader reader, long offset, long size) {
+        this.reader = reader;
+        this.position = offset;
+        this.end = offset + size;
+    }
+
+    private boolean loadBlock() throws IOException {
+        if (position >= end) {
+            return false;
+        }
+
+        // fetch the block containing the current position if required
+        if (!insideBlock()) {
+            blockIndex = reader.blockIndex(position);
+            blockOffset = reader.blockOffset(blockIndex);
+            block = reader.block(blockIndex);
+        }
+
+        // blocks at the end of the data may be shorter than requested
+        return insideBlock();
+    }
+
+    private boolean insideBlock() {
+        return block != null && position >= blockOffset
+                && position < blockOffset + block.limit();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!loadBlock()) {
+            return -1;
+        }
+
+        int b = block.get((int) (position - blockOffset)) & 0xff;
+        position++;
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+
+        if (!loadBlock()) {
+            return -1;
+        }
+
+        int blockPos = (int) (position - blockOffset);
+        int blockRemaining = block.limit() - blockPos;
+        int count = (int) Math.min(Math.min(len, blockRemaining), end - position);
+
+        ByteBuffer src = block.duplicate();
+        src.position(blockPos);
+        src.get(b, off, count);
+
+        position += count;
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+
+        long skipped = Math.min(n, end - position);
+        position += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        if (!insideBlock()) {
+            return 0;
+        }
+        return (int) (Math.min(blockOffset + block.limit(), end) - position);
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ ** 2026 October 18
+ **
+ ** The author disclaims copyright to this source code. In place of
+ ** a legal notice, here is a blessing:
+ **    May you do good and not evil.
+ **    May you find forgiveness for yourself and forgive others.
+ **    May you share freely, never taking more than you give.
+ */
+package info.ata4.junity.bundle;
+
+import static info.ata4.junity.bundle.BundleBlockInfo.COMPRESSION_NONE;
+import info.ata4.io.DataWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Output stream for the data area of UnityFS bundles. Splits the written data
+ * into storage blocks of a fixed size and writes them compressed to the
+ * bundle file.
+ *
+ * If an executor is set, multiple blocks are compressed at the same time and
+ * written in order as soon as they're done. The number of pending blocks is
+ * limited, so the memory usage doesn't depend on the size of the data.
+ *
+ * @author Nico Bergemann <barracuda415 at yahoo.de>
+ */
+class BundleBlockOutputStream extends OutputStream {
+
+    // maximum amount of uncompressed data in blocks waiting to be written
+    private static final int MAX_PENDING_SIZE = 1 << 26;
+
+    private final DataWriter out;
+    private final int blockSize;
+    private final int scheme;
+    private final Executor executor;
+    private final int maxPending;
+    private final int maxEncodedLength;
+
+    private final List<BundleBlockInfo> blockInfos = new ArrayList<>();
+    private final Deque<CompletableFuture<EncodedBlock>> pending = new ArrayDeque<>();
+
+    // free arrays of blocks that have been written already
+    private final Deque<byte[]> blockBuffers = new ArrayDeque<>();
+    private final Deque<byte[]> encodedBuffers = new ArrayDeque<>();
+
+    private byte[] block;
+    private int blockPos;
+    private boolean closed;
+
+    BundleBlockOutputStream(DataWriter out, int blockSize, int scheme, Executor executor) {
+        BundleBlockEncoder.checkScheme(scheme);
+
+        this.out = out;
+        this.blockSize = blockSize;
+        this.scheme = scheme;
+        this.executor = executor;
+        this.maxPending = executor == null ? 1 : Math.max(2, MAX_PENDING_SIZE / blockSize);
+        this.maxEncodedLength = BundleBlockEncoder.maxEncodedLength(scheme, blockSize);
+    }
+
+    /**
+     * Returns the infos of all blocks written so far. The list is complete
+     * after the stream has been closed.
+     */
+    List<BundleBlockInfo> blockInfos() {
+        return blockInfos;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+
+        while (len > 0) {
+            if (block == null) {
+                block = blockBuffers.isEmpty() ? new byte[blockSize] : blockBuffers.pop();
+                blockPos = 0;
+            }
+
+            int count = Math.min(len, blockSize - blockPos);
+            System.arraycopy(b, off, block, blockPos, count);
+            blockPos += count;
+            off += count;
+            len -= count;
+
+            if (blockPos == blockSize) {
+                submitBlock();
+            }
+        }
+    }
+
+    /**
+     * Ends the current block, even if it isn't full yet, so that the next
+     * written byte starts a new block.
+     */
+    void endBlock() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+
+        if (block != null && blockPos > 0) {
+            submitBlock();
+        }
+    }
+
+    /**
+     * Ends the current block and adds a block that has been compressed
+     * already, such as a block copied from another bundle. The data is written
+     * as it is after all pending blocks.
+     *
+     * @param blockInfo info of the block
+     * @param data stored block data with the compressed size from the info
+     */
+    void writeEncodedBlock(BundleBlockInfo blockInfo, byte[] data) throws IOException {
+        endBlock();
+
+        if (data.length != blockInfo.compressedSize()) {
+            throw new BundleException("Size mismatch for encoded block");
+        }
+
+        BundleBlockInfo blockInfoCopy = new BundleBlockInfo();
+        blockInfoCopy.uncompressedSize(blockInfo.uncompressedSize());
+        blockInfoCopy.compressedSize(blockInfo.compressedSize());
+        blockInfoCopy.flags(blockInfo.flags());
+        blockInfos.add(blockInfoCopy);
+
+        pending.add(CompletableFuture.completedFuture(new EncodedBlock(null, null, data, data.length)));
+
+        while (pending.size() >= maxPending) {
+            writeBlock(pending.poll());
+        }
+    }
+
+    private void submitBlock() throws IOException {
+        BundleBlockInfo blockInfo = new BundleBlockInfo();
+        blockInfo.uncompressedSize(blockPos);
+        blockInfos.add(blockInfo);
+
+        byte[] src = block;
+        int srcLen = blockPos;
+        byte[] encoded = encodedBuffers.isEmpty() ? new byte[maxEncodedLength] : encodedBuffers.pop();
+        block = null;
+
+        if (executor == null) {
+            pending.add(CompletableFuture.completedFuture(encode(blockInfo, src, srcLen, encoded)));
+        } else {
+            pending.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return encode(blockInfo, src, srcLen, encoded);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }, executor));
+        }
+
+        while (pending.size() >= maxPending) {
+            writeBlock(pending.poll());
+        }
+    }
+
+    private EncodedBlock encode(BundleBlockInfo blockInfo, byte[] src, int srcLen,
+            byte[] encoded) throws IOException {
+        int size = BundleBlockEncoder.encode(scheme, src, srcLen, encoded);
+
+        // store blocks that can't be compressed as they are
+        if (size < 0 || size >= srcLen) {
+            blockInfo.compressionScheme(COMPRESSION_NONE);
+            blockInfo.compressedSize(srcLen);
+            return new EncodedBlock(src, encoded, src, srcLen);
+        }
+
+        blockInfo.compressionScheme(scheme);
+        blockInfo.compressedSize(size);
+        return new EncodedBlock(src, encoded, encoded, size);
+    }
+
+    private void writeBlock(CompletableFuture<EncodedBlock> future) throws IOException {
+        EncodedBlock encoded;
+        try {
+            encoded = future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) ex.getCause()).getCause();
+            }
+            throw ex;
+        }
+
+        out.writeBytes(encoded.data, 0, encoded.size);
+
+        // reuse the arrays for the next blocks
+        if (encoded.src != null) {
+            blockBuffers.push(encoded.src);
+            encodedBuffers.push(encoded.encoded);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            if (block != null && blockPos > 0) {
+                submitBlock();
+            }
+
+            while (!pending.isEmpty()) {
+                writeBlock(pending.poll());
+            }
+        } finally {
+            // let running tasks finish before the caller proceeds
+            pending.forEach(future -> future.handle((result, ex) -> null).join());
+            pending.clear();
+        }
+    }
+
+    private static class EncodedBlock {
+
+        private final byte[] src;
+        private final byte[] encoded;
+        private final byte[] data;
+        private final int size;
+
+        private EncodedBlock(byte[] src, byte[] encoded, byte[] data, int size) {
+            this.src = src;
+            this.encoded = encoded;
+            this.data = data;
+            this.size = size;
+        }
+    }
+}
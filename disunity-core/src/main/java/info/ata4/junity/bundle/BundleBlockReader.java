@@ -0,0 +1,111 @@
+/*
+ ** 2026 October 18
+ **
+ ** The author disclaims copyright to this source code. In place of
+ ** a legal notice, here is a blessing:
+ **    May you do good and not evil.
+ **    May you find forgiveness for yourself and forgive others.
+ **    May you share freely, never taking more than you give.
+ */
+package info.ata4.junity.bundle;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * Base class for readers that split the uncompressed data area of a bundle
+ * into blocks. Decompressed blocks are kept in an optional block cache that
+ * may be shared with other readers.
+ *
+ * @author Nico Bergemann <barracuda415 at yahoo.de>
+ */
+abstract class BundleBlockReader {
+
+    private final BundleBlockCache cache;
+
+    // most recently used block that isn't held by the cache, either because
+    // there is no cache or because the block is larger than the whole cache,
+    // so that sequential reads don't decompress it again for every access
+    private volatile RecentBlock recent;
+
+    BundleBlockReader(BundleBlockCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Returns the index of the block that contains the given uncompressed
+     * offset.
+     */
+    abstract int blockIndex(long offset);
+
+    /**
+     * Returns the uncompressed offset of the first byte in the block.
+     */
+    abstract long blockOffset(int index);
+
+    /**
+     * Reads and decompresses a block, bypassing the cache.
+     */
+    protected abstract ByteBuffer readBlock(int index) throws IOException;
+
+    /**
+     * Returns the decompressed data of a block, either from the cache or by
+     * reading it. The returned buffer is shared and must not be modified.
+     */
+    ByteBuffer block(int index) throws IOException {
+        RecentBlock recentBlock = recent;
+        if (recentBlock != null && recentBlock.index == index) {
+            return recentBlock.block;
+        }
+
+        ByteBuffer block;
+        if (cache == null) {
+            block = readBlock(index);
+        } else {
+            block = cache.get(this, index, this::readBlock);
+        }
+
+        if (cache == null || !cache.fits(block)) {
+            recent = new RecentBlock(index, block);
+        }
+
+        return block;
+    }
+
+    /**
+     * Adds a block that was decoded as a side effect of reading another one.
+     */
+    protected void cacheBlock(int index, ByteBuffer block) {
+        if (cache != null) {
+            cache.put(this, index, block);
+        }
+    }
+
+    InputStream inputStream(long offset, long size) {
+        return new BundleBlockInputStream(this, offset, size);
+    }
+
+    SeekableByteChannel channel(long offset, long size) {
+        return new BundleBlockChannel(this, offset, size);
+    }
+
+    void close() throws IOException {
+        recent = null;
+        if (cache != null) {
+            cache.invalidate(this);
+        }
+    }
+
+    private static class RecentBlock {
+
+        private final int index;
+        private final ByteBuffer block;
+
+        private RecentBlock(int index, ByteBuffer block) {
+            this.index = index;
+            this.block = block;
+        }
+    }
+}
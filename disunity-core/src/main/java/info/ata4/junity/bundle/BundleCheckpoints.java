@@ -0,0 +1,316 @@
+/*
+ ** 2026 October 18
+ **
+ ** The author disclaims copyright to this source code. In place of
+ ** a legal notice, here is a blessing:
+ **    May you do good and not evil.
+ **    May you find forgiveness for yourself and forgive others.
+ **    May you share freely, never taking more than you give.
+ */
+package info.ata4.junity.bundle;
+
+import info.ata4.io.DataReader;
+import info.ata4.io.DataReaders;
+import info.ata4.io.DataWriter;
+import info.ata4.io.DataWriters;
+import info.ata4.log.LogUtils;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Checkpoint index for the LZMA stream of UnityWeb bundles. The decoder state
+ * of the LZMA library can't be saved, so the decompressed data is stored
+ * instead in windows of a fixed size that are compressed independently with
+ * Deflate. A window can then be restored without decoding the LZMA stream up
+ * to that point. The index can be persisted to a sidecar file, which is
+ * validated against the size, modification time and a checksum of the start
+ * and end of the bundle.
+ *
+ * @author Nico Bergemann <barracuda415 at yahoo.de>
+ */
+class BundleCheckpoints {
+
+    private static final Logger L = LogUtils.getLogger();
+
+    static final int INTERVAL = 1 << 22;
+
+    private static final int MAGIC = 0x44435054; // "DCPT"
+    private static final int VERSION = 2;
+
+    // size of the header
+    private static final int HEADER_SIZE = 48;
+
+    // size of a window in the table after the header
+    private static final int WINDOW_INFO_SIZE = 20;
+
+    // amount of data at the start and the end of the bundle that is included
+    // in the checksum
+    private static final int CHECKSUM_RANGE = 1 << 16;
+
+    private final Path file;
+    private final long bundleSize;
+    private final long bundleModified;
+    private final long bundleChecksum;
+    private final Map<Integer, Window> windows = new TreeMap<>();
+    private FileChannel fc;
+    private long dataSize = -1;
+    private boolean modified;
+
+    BundleCheckpoints(Path file, Path bundleFile) throws IOException {
+        this.file = file;
+        this.bundleSize = Files.size(bundleFile);
+        this.bundleModified = Files.getLastModifiedTime(bundleFile).toMillis();
+        this.bundleChecksum = checksum(bundleFile, bundleSize);
+
+        if (file != null && Files.exists(file)) {
+            load();
+        }
+    }
+
+    /**
+     * Returns the CRC32 of the first and last bytes of the bundle, which
+     * contain the header and the end of the compressed stream. This detects
+     * replaced bundles of the same size and modification time without reading
+     * the whole file.
+     */
+    private static long checksum(Path bundleFile, long size) throws IOException {
+        CRC32 crc = new CRC32();
+        try (FileChannel bundleChannel = FileChannel.open(bundleFile, READ)) {
+            int headLength = (int) Math.min(size, CHECKSUM_RANGE);
+            crc.update(readFully(bundleChannel, 0, headLength));
+
+            long tailOffset = Math.max(headLength, size - CHECKSUM_RANGE);
+            crc.update(readFully(bundleChannel, tailOffset, (int) (size - tailOffset)));
+        }
+        return crc.getValue();
+    }
+
+    private void load() throws IOException {
+        long fileSize = Files.size(file);
+
+        try (DataReader in = DataReaders.forFile(file, READ)) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION
+                    || in.readLong() != bundleSize || in.readLong() != bundleModified
+                    || in.readLong() != bundleChecksum || in.readInt() != INTERVAL) {
+                L.log(Level.FINE, "Ignoring outdated checkpoint file {0}", file);
+                return;
+            }
+
+            dataSize = in.readLong();
+
+            int count = in.readInt();
+            if (count < 0 || HEADER_SIZE + (long) count * WINDOW_INFO_SIZE > fileSize) {
+                invalidate("Invalid window count in checkpoint file {0}");
+                return;
+            }
+
+            for (int i = 0; i < count; i++) {
+                Window window = new Window();
+                int index = in.readInt();
+                window.size = in.readInt();
+                window.offset = in.readLong();
+                window.length = in.readInt();
+
+                // all windows must be complete, so they can be read later
+                if (index < 0 || window.size <= 0 || window.size > INTERVAL
+                        || window.length < 0 || window.offset < HEADER_SIZE
+                        || window.offset + window.length > fileSize) {
+                    invalidate("Truncated or corrupt checkpoint file {0}");
+                    return;
+                }
+
+                windows.put(index, window);
+            }
+        } catch (EOFException ex) {
+            invalidate("Truncated checkpoint file {0}");
+            return;
+        }
+
+        fc = FileChannel.open(file, READ);
+    }
+
+    private void invalidate(String message) {
+        L.log(Level.WARNING, message, file);
+        windows.clear();
+        dataSize = -1;
+    }
+
+    /**
+     * Returns the total size of the decompressed data or -1 if the end of the
+     * stream hasn't been reached yet.
+     */
+    long dataSize() {
+        return dataSize;
+    }
+
+    void dataSize(long dataSize) {
+        if (this.dataSize != dataSize) {
+            this.dataSize = dataSize;
+            modified = true;
+        }
+    }
+
+    boolean contains(int index) {
+        return windows.containsKey(index);
+    }
+
+    void add(int index, byte[] data, int size) {
+        if (windows.containsKey(index)) {
+            return;
+        }
+
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(size / 2);
+        try {
+            deflater.setInput(data, 0, size);
+            deflater.finish();
+
+            byte[] buf = new byte[1 << 16];
+            while (!deflater.finished()) {
+                bos.write(buf, 0, deflater.deflate(buf));
+            }
+        } finally {
+            deflater.end();
+        }
+
+        Window window = new Window();
+        window.size = size;
+        window.data = bos.toByteArray();
+        window.length = window.data.length;
+        windows.put(index, window);
+        modified = true;
+    }
+
+    byte[] read(int index) throws IOException {
+        Window window = windows.get(index);
+        byte[] data = new byte[window.size];
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressedData(window));
+
+            int pos = 0;
+            while (pos < data.length) {
+                int read = inflater.inflate(data, pos, data.length - pos);
+                if (read == 0 && (inflater.finished() || inflater.needsInput())) {
+                    throw new BundleException("Checkpoint " + index + " is truncated");
+                }
+                pos += read;
+            }
+        } catch (DataFormatException ex) {
+            throw new BundleException("Corrupt checkpoint " + index + ": " + ex.getMessage());
+        } finally {
+            inflater.end();
+        }
+
+        return data;
+    }
+
+    private byte[] compressedData(Window window) throws IOException {
+        if (window.data != null) {
+            return window.data;
+        }
+
+        return readFully(fc, window.offset, window.length);
+    }
+
+    private static byte[] readFully(FileChannel channel, long position, int length)
+            throws IOException {
+        ByteBuffer bb = ByteBuffer.allocate(length);
+        while (bb.hasRemaining()) {
+            int read = channel.read(bb, position);
+            if (read < 0) {
+                throw new EOFException();
+            }
+            position += read;
+        }
+        return bb.array();
+    }
+
+    /**
+     * Writes the index to the sidecar file if new checkpoints were added.
+     */
+    void save() throws IOException {
+        if (file == null || !modified) {
+            return;
+        }
+
+        // load all windows from the old file before it's replaced
+        for (Window window : windows.values()) {
+            window.data = compressedData(window);
+        }
+
+        close();
+
+        Path dir = file.toAbsolutePath().getParent();
+        Path tmpFile = Files.createTempFile(dir, file.getFileName().toString(), null);
+        try {
+            try (DataWriter out = DataWriters.forFile(tmpFile, WRITE)) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(bundleSize);
+                out.writeLong(bundleModified);
+                out.writeLong(bundleChecksum);
+                out.writeInt(INTERVAL);
+                out.writeLong(dataSize);
+                out.writeInt(windows.size());
+
+                long offset = HEADER_SIZE + (long) windows.size() * WINDOW_INFO_SIZE;
+                for (Map.Entry<Integer, Window> entry : windows.entrySet()) {
+                    Window window = entry.getValue();
+                    out.writeInt(entry.getKey());
+                    out.writeInt(window.size);
+                    out.writeLong(offset);
+                    out.writeInt(window.length);
+                    offset += window.length;
+                }
+
+                for (Window window : windows.values()) {
+                    out.writeBytes(window.data);
+                }
+            }
+
+            Files.move(tmpFile, file, ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmpFile);
+        }
+
+        modified = false;
+    }
+
+    void close() throws IOException {
+        if (fc != null) {
+            fc.close();
+            fc = null;
+        }
+    }
+
+    private static class Window {
+
+        // size of the decompressed window
+        private int size;
+
+        // offset and length of the compressed window in the sidecar file
+        private long offset;
+        private int length;
+
+        // compressed window, if not yet saved
+        private byte[] data;
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ ** 2026 October 18
+ **
+ ** The author disclaims copyright to this source code. In place of
+ ** a legal notice, here is a blessing:
+ **    May you do good and not evil.
+ **    May you find forgiveness for yourself and forgive others.
+ **    May you share freely, never taking more than you give.
+ */
+package info.ata4.junity.bundle;
+
+import info.ata4.util.io.ScratchBuffer;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Random access reader for the data area of chunked UnityFS bundles. Uses the
+ * storage block table to decompress only the blocks that overlap a requested
+ * range of the uncompressed data.
+ *
+ * @author Nico Bergemann <barracuda415 at yahoo.de>
+ */
+class BundleChunkReader extends BundleBlockReader {
+
+    // amount of uncompressed data per parallel decoding task
+    private static final long DECODE_TASK_SIZE = 1 << 23;
+
+    // per-thread buffers for compressed input and, when decoding into a
+    // channel or parsing the data header, uncompressed output, which are
+    // reused for every block
+    static final ScratchBuffer COMPRESSED_BUFFER = new ScratchBuffer();
+    static final ScratchBuffer UNCOMPRESSED_BUFFER = new ScratchBuffer();
+
+    private final FileChannel fc;
+    private final List<BundleBlockInfo> blocks;
+
+    // uncompressed start offsets of all blocks plus the total size at the end
+    private final long[] offsets;
+
+    // absolute file offsets of all compressed blocks
+    private final long[] fileOffsets;
+
+    BundleChunkReader(FileChannel fc, long dataOffset, List<BundleBlockInfo> blocks,
+            BundleBlockCache cache) {
+        super(cache);
+        this.fc = fc;
+        this.blocks = blocks;
+
+        int numBlocks = blocks.size();
+        offsets = new long[numBlocks + 1];
+        fileOffsets = new long[numBlocks];
+
+        long offset = 0;
+        long fileOffset = dataOffset;
+        for (int i = 0; i < numBlocks; i++) {
+            BundleBlockInfo block = blocks.get(i);
+            offsets[i] = offset;
+            fileOffsets[i] = fileOffset;
+            offset += block.uncompressedSize();
+            fileOffset += block.compressedSize();
+        }
+        offsets[numBlocks] = offset;
+    }
+
+    int blockCount() {
+        return blocks.size();
+    }
+
+    BundleBlockInfo blockInfo(int index) {
+        return blocks.get(index);
+    }
+
+    @Override
+    long blockOffset(int index) {
+        return offsets[index];
+    }
+
+    long blockFileOffset(int index) {
+        return fileOffsets[index];
+    }
+
+    long size() {
+        return offsets[blocks.size()];
+    }
+
+    /**
+     * Returns the absolute file offset for a range of the uncompressed data if
+     * the range is only covered by uncompressed blocks, which are stored
+     * contiguously in the file, or -1 otherwise.
+     */
+    long storedFileOffset(long offset, long length) {
+        if (length <= 0 || offset + length > size()) {
+            return -1;
+        }
+
+        int first = blockIndex(offset);
+        int last = blockIndex(offset + length - 1);
+        for (int i = first; i <= last; i++) {
+            if (blocks.get(i).compressed()) {
+                return -1;
+            }
+        }
+
+        return fileOffsets[first] + offset - offsets[first];
+    }
+
+    @Override
+    int blockIndex(long offset) {
+        if (offset < 0 || offset >= size()) {
+            throw new IndexOutOfBoundsException("Offset " + offset
+                    + " outside of data area with size " + size());
+        }
+
+        int index = Arrays.binarySearch(offsets, offset);
+        if (index < 0) {
+            // offset is inside a block, get the block that starts before it
+            index = -index - 2;
+        } else {
+            // skip empty blocks that start at the same offset
+            while (blocks.get(index).uncompressedSize() == 0) {
+                index++;
+            }
+        }
+
+        return index;
+    }
+
+    @Override
+    protected ByteBuffer readBlock(int index) throws IOException {
+        // the block is kept in the cache or as the most recent block, so it
+        // needs its own array instead of a scratch buffer
+        byte[] uncompressed = new byte[uncompressedSize(index)];
+        return ByteBuffer.wrap(uncompressed, 0, decodeBlock(index, uncompressed));
+    }
+
+    /**
+     * Decompresses a block into the given array and returns its uncompressed
+     * size. The compressed data is read into a per-thread scratch buffer.
+     */
+    private int decodeBlock(int index, byte[] dst) throws IOException {
+        BundleBlockInfo block = blocks.get(index);
+
+        int compressedSize = compressedSize(index);
+        int uncompressedSize = uncompressedSize(index);
+
+        if (!block.compressed()) {
+            if (compressedSize != uncompressedSize) {
+                throw new BundleException("Size mismatch for uncompressed block");
+            }
+            readFully(ByteBuffer.wrap(dst, 0, compressedSize), fileOffsets[index]);
+            return uncompressedSize;
+        }
+
+        byte[] compressed = COMPRESSED_BUFFER.get(compressedSize);
+        readFully(ByteBuffer.wrap(compressed, 0, compressedSize), fileOffsets[index]);
+
+        BundleBlockDecoder.decode(block.compressionScheme(), compressed,
+                compressedSize, dst, uncompressedSize);
+
+        return uncompressedSize;
+    }
+
+    /**
+     * Reads the data of a block as it is stored in the file, without
+     * decompressing it. The writer queues the returned array, so it can't be a
+     * scratch buffer.
+     */
+    byte[] readRawBlock(int index) throws IOException {
+        byte[] raw = new byte[compressedSize(index)];
+        readFully(ByteBuffer.wrap(raw), fileOffsets[index]);
+        return raw;
+    }
+
+    private int compressedSize(int index) throws BundleException {
+        return arraySize(blocks.get(index).compressedSize(), index, "compressed");
+    }
+
+    private int uncompressedSize(int index) throws BundleException {
+        return arraySize(blocks.get(index).uncompressedSize(), index, "uncompressed");
+    }
+
+    private static int arraySize(long size, int index, String kind) throws BundleException {
+        // blocks are decoded into arrays, which can't hold 2 GiB or more
+        if (size < 0 || size > Integer.MAX_VALUE - 8) {
+            throw new BundleException("Invalid " + kind + " size " + size
+                    + " for block " + index);
+        }
+        return (int) size;
+    }
+
+    private void readFully(ByteBuffer bb, long position) throws IOException {
+        while (bb.hasRemaining()) {
+            int read = fc.read(bb, position);
+            if (read < 0) {
+                throw new EOFException();
+            }
+            position += read;
+        }
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer bb, long position) throws IOException {
+        while (bb.hasRemaining()) {
+            position += out.write(bb, position);
+        }
+    }
+
+    /**
+     * Decompresses all blocks into the given channel, using the executor to
+     * decode multiple blocks at the same time. Each block is written at its
+     * uncompressed offset, so the output is in order regardless of the order in
+     * which the tasks finish.
+     */
+    void decode(FileChannel out, Executor executor) throws IOException {
+        List<CompletableFuture<Void>> tasks = new ArrayList<>();
+
+        // group small blocks into larger tasks to keep the scheduling overhead low
+        int numBlocks = blocks.size();
+        int start = 0;
+        while (start < numBlocks) {
+            int end = start + 1;
+            while (end < numBlocks && offsets[end + 1] - offsets[start] <= DECODE_TASK_SIZE) {
+                end++;
+            }
+
+            int from = start;
+            int to = end;
+            tasks.add(CompletableFuture.runAsync(() -> {
+                try {
+                    // blocks are written right away, so the task can decode
+                    // all of them into the same buffer
+                    for (int i = from; i < to; i++) {
+                        byte[] uncompressed = UNCOMPRESSED_BUFFER.get(uncompressedSize(i));
+                        int size = decodeBlock(i, uncompressed);
+                        writeFully(out, ByteBuffer.wrap(uncompressed, 0, size), offsets[i]);
+                    }
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }, executor));
+
+            start = end;
+        }
+
+        try {
+            CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) ex.getCause()).getCause();
+            }
+            throw ex;
+        }
+    }
+}
@@ -9,9 +9,16 @@
  */
 package info.ata4.junity.bundle;
 
+import info.ata4.io.buffer.ByteBufferChannel;
+import info.ata4.io.buffer.ByteBufferOutputStream;
+import info.ata4.util.io.FileRegion;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.util.Optional;
 import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
 
 /**
  *
@@ -34,4 +41,39 @@ public abstract class BundleEntry {
     public abstract long size();
 
     public abstract InputStream inputStream() throws IOException;
+
+    /**
+     * Returns a read-only seekable channel for the entry data. The default
+     * implementation copies the whole entry into memory, subclasses should
+     * provide a channel that reads the data on demand if possible.
+     *
+     * @return seekable channel for the entry data
+     * @throws IOException
+     */
+    public SeekableByteChannel byteChannel() throws IOException {
+        long size = size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Entry is too large to be buffered: " + name());
+        }
+
+        ByteBuffer bb = ByteBuffer.allocateDirect((int) size);
+        try (InputStream is = inputStream()) {
+            IOUtils.copy(is, new ByteBufferOutputStream(bb));
+        }
+        bb.flip();
+
+        return new ByteBufferChannel(bb);
+    }
+
+    /**
+     * Returns the region of a file that contains the data of this entry as-is,
+     * if there is one. Entry data that is stored without compression can then
+     * be copied or mapped directly instead of using the input stream.
+     *
+     * @return file region of the entry data or an empty Optional if the data
+     *         is only available through the input stream
+     */
+    public Optional<FileRegion> fileRegion() {
+        return Optional.empty();
+    }
 }
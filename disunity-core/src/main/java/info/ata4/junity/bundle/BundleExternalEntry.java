@@ -9,10 +9,14 @@
  */
 package info.ata4.junity.bundle;
 
+import info.ata4.util.io.FileRegion;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import static java.nio.file.StandardOpenOption.READ;
+import java.util.Optional;
 
 /**
  *
@@ -45,4 +49,14 @@ public class BundleExternalEntry extends BundleEntry {
         return Files.newInputStream(file);
     }
 
+    @Override
+    public SeekableByteChannel byteChannel() throws IOException {
+        return Files.newByteChannel(file, READ);
+    }
+
+    @Override
+    public Optional<FileRegion> fileRegion() {
+        return Optional.of(new FileRegion(file, 0, size()));
+    }
+
 }
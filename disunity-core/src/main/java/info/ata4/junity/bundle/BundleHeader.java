@@ -138,6 +138,15 @@ public class BundleHeader implements Struct {
         out.writeInt(streamVersion);
         out.writeStringNull(unityVersion.toString());
         out.writeStringNull(unityRevision.toString());
+
+        if (signature.equals(SIGNATURE_FS)) {
+            out.writeLong(completeFileSize);
+            out.writeInt(compressedDataHeaderSize);
+            out.writeInt((int) dataHeaderSize);
+            out.writeInt(flags);
+            return;
+        }
+
         out.writeUnsignedInt(minimumStreamedBytes);
         out.writeInt(headerSize);
 
@@ -255,6 +264,12 @@ public class BundleHeader implements Struct {
 
     public int compressedDataHeaderSize() { return compressedDataHeaderSize; }
 
+    public void compressedDataHeaderSize(int compressedDataHeaderSize) { this.compressedDataHeaderSize = compressedDataHeaderSize; }
+
+    public int flags() { return flags; }
+
+    public void flags(int flags) { this.flags = flags; }
+
     public int dataHeaderCompressionScheme() { return (flags & 0x3f); }
 
     public boolean dataHeaderAtEndOfFile() { return (flags & 0x80) != 0; }
@@ -10,8 +10,12 @@
 package info.ata4.junity.bundle;
 
 import info.ata4.util.function.IOFunction;
+import info.ata4.util.io.FileRegion;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.SeekableByteChannel;
+import java.util.Optional;
+import java.util.function.Function;
 
 /**
  *
@@ -21,11 +25,26 @@ public class BundleInternalEntry extends BundleEntry {
 
     private final BundleEntryInfo info;
     private final IOFunction<BundleEntryInfo, InputStream> inputStreamFactory;
+    private final IOFunction<BundleEntryInfo, SeekableByteChannel> byteChannelFactory;
+    private final Function<BundleEntryInfo, Optional<FileRegion>> fileRegionFactory;
 
     public BundleInternalEntry(BundleEntryInfo info,
             IOFunction<BundleEntryInfo, InputStream> isFactory) {
+        this(info, isFactory, null, i -> Optional.empty());
+    }
+
+    public BundleInternalEntry(BundleEntryInfo info,
+            IOFunction<BundleEntryInfo, InputStream> isFactory,
+            IOFunction<BundleEntryInfo, SeekableByteChannel> chanFactory,
+            Function<BundleEntryInfo, Optional<FileRegion>> regionFactory) {
         this.info = info;
         this.inputStreamFactory = isFactory;
+        this.byteChannelFactory = chanFactory;
+        this.fileRegionFactory = regionFactory;
+    }
+
+    public BundleEntryInfo info() {
+        return info;
     }
 
     @Override
@@ -43,6 +62,19 @@ public class BundleInternalEntry extends BundleEntry {
         return inputStreamFactory.apply(info);
     }
 
+    @Override
+    public SeekableByteChannel byteChannel() throws IOException {
+        if (byteChannelFactory == null) {
+            return super.byteChannel();
+        }
+        return byteChannelFactory.apply(info);
+    }
+
+    @Override
+    public Optional<FileRegion> fileRegion() {
+        return fileRegionFactory.apply(info);
+    }
+
     @Override
     public String toString() {
         return name();
@@ -11,19 +11,26 @@ package info.ata4.junity.bundle;
 
 import info.ata4.io.DataReader;
 import info.ata4.io.DataReaders;
+import info.ata4.log.LogUtils;
+import info.ata4.util.io.FileChannelInputStream;
+import info.ata4.util.io.FileRegion;
+import info.ata4.util.io.FileRegionChannel;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import static java.nio.file.StandardOpenOption.DELETE_ON_CLOSE;
 import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
 import java.util.List;
-
-import info.ata4.util.lz4.LZ4FastDecompressor;
-import info.ata4.util.lz4.LZ4JavaSafeFastDecompressor;
-import net.contrapunctus.lzma.LzmaInputStream;
-import org.apache.commons.io.input.BoundedInputStream;
-import org.apache.commons.io.input.CountingInputStream;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Streaming reader for Unity asset bundles.
@@ -32,18 +39,100 @@ import org.apache.commons.io.input.CountingInputStream;
  */
 public class BundleReader implements Closeable {
 
+    private static final Logger L = LogUtils.getLogger();
+
+    private final Path file;
     private final DataReader in;
+    private final FileChannel fc;
     private Bundle bundle;
-    private CountingInputStream lzma;
+    private BundleBlockReader blockReader;
+    private BundleBlockCache blockCache = new BundleBlockCache();
+    private BundleCheckpoints checkpoints;
+    private Path checkpointFile;
+    private FileChannel decodedData;
+    private Executor executor;
     private boolean closed;
 
     public BundleReader(Path file) throws IOException {
+        this.file = file;
         in = DataReaders.forFile(file, READ);
+        fc = FileChannel.open(file, READ);
+    }
+
+    /**
+     * Returns the executor used to decompress the blocks of chunked bundles in
+     * parallel, or null if parallel decoding is disabled.
+     */
+    public Executor executor() {
+        return executor;
+    }
+
+    /**
+     * Enables parallel decoding for chunked UnityFS bundles. When set, all
+     * compressed blocks are decompressed concurrently by the executor into a
+     * temporary file on the first access to any entry, which is then used for
+     * all further reads. Useful if most or all entries are going to be read.
+     *
+     * @param executor executor for the decoding tasks or null to decode
+     *                 blocks sequentially and on demand
+     */
+    public void executor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Returns the cache for decompressed blocks used by this reader.
+     */
+    public BundleBlockCache blockCache() {
+        return blockCache;
+    }
+
+    /**
+     * Sets the cache for decompressed blocks, which can be shared between
+     * multiple readers. Must be set before calling {@link #read()}.
+     *
+     * @param blockCache block cache or null to disable caching
+     */
+    public void blockCache(BundleBlockCache blockCache) {
+        this.blockCache = blockCache;
+    }
+
+    /**
+     * Returns the checkpoint sidecar file for compressed UnityWeb bundles.
+     */
+    public Path checkpointFile() {
+        return checkpointFile;
+    }
+
+    /**
+     * Enables checkpoints for the LZMA stream of UnityWeb bundles, which are
+     * loaded from and saved to the given sidecar file. While decoding the
+     * stream, the decompressed data is recorded in windows of 4 MiB, so that
+     * later seeks don't have to decode the stream from the beginning again.
+     * The file is only used if it matches the size and modification time of
+     * the bundle. Must be set before calling {@link #read()}.
+     *
+     * @param checkpointFile sidecar file or null to disable checkpoints
+     */
+    public void checkpointFile(Path checkpointFile) {
+        this.checkpointFile = checkpointFile;
     }
 
     public Bundle read() throws BundleException, IOException {
         bundle = new Bundle();
 
+        if (blockReader != null) {
+            blockReader.close();
+            blockReader = null;
+        }
+
+        closeCheckpoints();
+
+        if (decodedData != null) {
+            decodedData.close();
+            decodedData = null;
+        }
+
         in.position(0);
 
         BundleHeader header = bundle.header();
@@ -62,43 +151,37 @@ public class BundleReader implements Closeable {
                 in.position(header.completeFileSize() - header.compressedDataHeaderSize());
             }
 
-            // build an input stream for the uncompressed data header
-            InputStream headerIn = new BoundedInputStream(in.stream(), header.compressedDataHeaderSize());
-            DataReader inData;
-            switch(header.dataHeaderCompressionScheme()) {
-                default:
-                case 0:
-                    // Not compressed
-                    inData = DataReaders.forInputStream(headerIn);
-
-                case 1:
-                    // LZMA
-                    inData = DataReaders.forInputStream(
-                            new CountingInputStream(new LzmaInputStream(headerIn)));
-
-                case 3:
-                    // LZ4
-                    byte[] compressed = new byte[header.compressedDataHeaderSize()];
-                    byte[] decompressed = new byte[(int)header.dataHeaderSize()];
-                    headerIn.read(compressed);
-                    LZ4JavaSafeFastDecompressor.INSTANCE.decompress(compressed, decompressed);
-                    inData = DataReaders.forByteBuffer(ByteBuffer.wrap(decompressed));
+            int compressedSize = header.compressedDataHeaderSize();
+            long dataHeaderSize = header.dataHeaderSize();
+            if (compressedSize < 0 || dataHeaderSize < 0 || dataHeaderSize > Integer.MAX_VALUE - 8) {
+                throw new BundleException("Invalid data header size " + dataHeaderSize);
             }
-
-            // Block info: not captured for now
-            {
-                // 16 bytes unknown
-                byte[] unknown = new byte[16];
-                inData.readBytes(unknown);
-
-                int storageBlocks = inData.readInt();
-                for (int i = 0; i < storageBlocks; ++i) {
-                    inData.readUnsignedInt();
-                    inData.readUnsignedInt();
-                    inData.readUnsignedShort();
-                }
+            int decompressedSize = (int) dataHeaderSize;
+
+            // read and decompress the data header into the scratch buffers of
+            // the block reader, since it's parsed right away
+            byte[] compressed = BundleChunkReader.COMPRESSED_BUFFER.get(compressedSize);
+            byte[] decompressed = BundleChunkReader.UNCOMPRESSED_BUFFER.get(decompressedSize);
+            in.readBytes(compressed, 0, compressedSize);
+            BundleBlockDecoder.decode(header.dataHeaderCompressionScheme(),
+                    compressed, compressedSize, decompressed, decompressedSize);
+            DataReader inData = DataReaders.forByteBuffer(
+                    ByteBuffer.wrap(decompressed, 0, decompressedSize).slice());
+
+            // hash of the uncompressed data
+            inData.readStruct(bundle.dataHash());
+
+            // storage block table
+            List<BundleBlockInfo> blockInfos = bundle.blockInfos();
+            int storageBlocks = inData.readInt();
+            for (int i = 0; i < storageBlocks; ++i) {
+                BundleBlockInfo blockInfo = new BundleBlockInfo();
+                inData.readStruct(blockInfo);
+                blockInfos.add(blockInfo);
             }
 
+            blockReader = new BundleChunkReader(fc, header.headerSize(), blockInfos, blockCache);
+
             int files = inData.readInt();
 
             for (int i = 0; i < files; i++) {
@@ -108,6 +191,14 @@ public class BundleReader implements Closeable {
             }
         } else {
             // raw or web header
+            if (header.compressed()) {
+                if (checkpointFile != null) {
+                    checkpoints = new BundleCheckpoints(checkpointFile, file);
+                }
+                blockReader = new BundleStreamReader(fc, header.headerSize(),
+                        blockCache, checkpoints);
+            }
+
             long dataHeaderSize = header.dataHeaderSize();
             if (dataHeaderSize == 0) {
                 // old stream versions don't store the data header size, so use a large
@@ -132,46 +223,62 @@ public class BundleReader implements Closeable {
 
         List<BundleEntry> entries = bundle.entries();
         entryInfos.forEach(entryInfo -> {
-            entries.add(new BundleInternalEntry(entryInfo, this::inputStreamForEntry));
+            entries.add(new BundleInternalEntry(entryInfo, this::inputStreamForEntry,
+                    this::byteChannelForEntry, this::fileRegionForEntry));
         });
 
         return bundle;
     }
 
-    private InputStream dataInputStream(long offset, long size) throws IOException {
-        InputStream is;
-
-        // use LZMA stream if the bundle is compressed
-        if (bundle.header().compressed()) {
-            // create initial input stream if required
-            if (lzma == null) {
-                lzma = lzmaInputStream();
-            }
+    /**
+     * Returns the bundle from the last call to {@link #read()} or null if it
+     * hasn't been read yet.
+     */
+    Bundle bundle() {
+        return bundle;
+    }
 
-            // recreate stream if the offset is behind
-            long lzmaOffset = lzma.getByteCount();
-            if (lzmaOffset > offset) {
-                lzma.close();
-                lzma = lzmaInputStream();
-            }
+    /**
+     * Returns the storage block reader of UnityFS bundles or null for other
+     * bundles.
+     */
+    BundleChunkReader chunkReader() {
+        if (blockReader instanceof BundleChunkReader) {
+            return (BundleChunkReader) blockReader;
+        }
+        return null;
+    }
 
-            // skip forward if required
-            if (lzmaOffset < offset) {
-                lzma.skip(offset - lzmaOffset);
-            }
+    private InputStream dataInputStream(long offset, long size) throws IOException {
+        // decode all blocks of chunked bundles in parallel if requested
+        if (executor != null && blockReader instanceof BundleChunkReader
+                && bundle.blockInfos().stream().anyMatch(BundleBlockInfo::compressed)) {
+            return new FileChannelInputStream(decodedData(), offset, size);
+        }
 
-            is = lzma;
-        } else {
-            in.position(bundle.header().headerSize() + offset);
-            is = in.stream();
+        // use block reader for compressed bundles
+        if (blockReader != null) {
+            return blockReader.inputStream(offset, size);
         }
 
-        return new BoundedInputStream(is, size);
+        // use positional reads for uncompressed bundles, so that multiple
+        // entries can be read at the same time
+        return new FileChannelInputStream(fc, bundle.header().headerSize() + offset, size);
     }
 
-    private CountingInputStream lzmaInputStream() throws IOException {
-        in.position(bundle.header().headerSize());
-        return new CountingInputStream(new LzmaInputStream(in.stream()));
+    private synchronized FileChannel decodedData() throws IOException {
+        if (decodedData == null) {
+            Path tmpFile = Files.createTempFile("disunity", null);
+            FileChannel tmpChannel = FileChannel.open(tmpFile, READ, WRITE, DELETE_ON_CLOSE);
+            try {
+                ((BundleChunkReader) blockReader).decode(tmpChannel, executor);
+            } catch (IOException | RuntimeException ex) {
+                tmpChannel.close();
+                throw ex;
+            }
+            decodedData = tmpChannel;
+        }
+        return decodedData;
     }
 
     private InputStream inputStreamForEntry(BundleEntryInfo info) throws IOException {
@@ -181,12 +288,65 @@ public class BundleReader implements Closeable {
         return dataInputStream(info.offset(), info.size());
     }
 
+    private void closeCheckpoints() throws IOException {
+        if (checkpoints == null) {
+            return;
+        }
+
+        // failing to write the sidecar file shouldn't fail the whole reader
+        try {
+            checkpoints.save();
+        } catch (IOException ex) {
+            L.log(Level.WARNING, "Can't save checkpoint file " + checkpointFile, ex);
+        }
+
+        checkpoints.close();
+        checkpoints = null;
+    }
+
+    private SeekableByteChannel byteChannelForEntry(BundleEntryInfo info) throws IOException {
+        if (closed) {
+            throw new BundleException("Bundle reader is closed");
+        }
+
+        // decompress blocks on demand for compressed bundles
+        if (blockReader != null) {
+            return blockReader.channel(info.offset(), info.size());
+        }
+
+        return new FileRegionChannel(file, bundle.header().headerSize() + info.offset(), info.size());
+    }
+
+    private Optional<FileRegion> fileRegionForEntry(BundleEntryInfo info) {
+        long offset;
+        if (blockReader == null) {
+            // uncompressed bundle
+            offset = bundle.header().headerSize() + info.offset();
+        } else if (blockReader instanceof BundleChunkReader) {
+            // chunked bundle, which might contain uncompressed blocks
+            offset = ((BundleChunkReader) blockReader).storedFileOffset(info.offset(), info.size());
+        } else {
+            offset = -1;
+        }
+
+        if (offset < 0) {
+            return Optional.empty();
+        }
+
+        return Optional.of(new FileRegion(file, offset, info.size()));
+    }
+
     @Override
     public void close() throws IOException {
         closed = true;
-        if (lzma != null) {
-            lzma.close();
+        if (blockReader != null) {
+            blockReader.close();
         }
+        closeCheckpoints();
         in.close();
+        fc.close();
+        if (decodedData != null) {
+            decodedData.close();
+        }
     }
 }
@@ -0,0 +1,169 @@
+/*
+ ** 2026 October 18
+ **
+ ** The author disclaims copyright to this source code. In place of
+ ** a legal notice, here is a blessing:
+ **    May you do good and not evil.
+ **    May you find forgiveness for yourself and forgive others.
+ **    May you share freely, never taking more than you give.
+ */
+package info.ata4.junity.bundle;
+
+import info.ata4.util.io.FileChannelInputStream;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import net.contrapunctus.lzma.LzmaInputStream;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Block reader for the single LZMA stream of UnityWeb bundles. The stream
+ * can only be decoded sequentially, so it is split into virtual blocks of a
+ * fixed size. Every block that is decoded on the way to a requested one is
+ * cached, which makes seeking backwards cheap as long as the blocks are still
+ * in the cache. Otherwise, decoding restarts at the beginning of the stream,
+ * unless the block can be restored from an optional checkpoint index.
+ *
+ * @author Nico Bergemann <barracuda415 at yahoo.de>
+ */
+class BundleStreamReader extends BundleBlockReader {
+
+    static final int BLOCK_SIZE = 1 << 20;
+
+    private static final int BLOCKS_PER_CHECKPOINT = BundleCheckpoints.INTERVAL / BLOCK_SIZE;
+
+    private final FileChannel fc;
+    private final long dataOffset;
+    private final BundleCheckpoints checkpoints;
+    private InputStream lzma;
+    private int nextBlock;
+
+    // decoded data of the current checkpoint window
+    private byte[] window;
+    private int windowSize;
+
+    BundleStreamReader(FileChannel fc, long dataOffset, BundleBlockCache cache,
+            BundleCheckpoints checkpoints) {
+        super(cache);
+        this.fc = fc;
+        this.dataOffset = dataOffset;
+        this.checkpoints = checkpoints;
+    }
+
+    @Override
+    int blockIndex(long offset) {
+        return (int) (offset / BLOCK_SIZE);
+    }
+
+    @Override
+    long blockOffset(int index) {
+        return (long) index * BLOCK_SIZE;
+    }
+
+    @Override
+    protected synchronized ByteBuffer readBlock(int index) throws IOException {
+        if (checkpoints != null) {
+            // no need to decode anything past the end of the stream
+            long dataSize = checkpoints.dataSize();
+            if (dataSize >= 0 && blockOffset(index) >= dataSize) {
+                return ByteBuffer.allocate(0);
+            }
+
+            if (checkpoints.contains(index / BLOCKS_PER_CHECKPOINT)) {
+                return restoreBlock(index);
+            }
+        }
+
+        // restart decoding if the block is behind the current stream position
+        if (lzma == null || nextBlock > index) {
+            if (lzma != null) {
+                lzma.close();
+            }
+            InputStream is = new FileChannelInputStream(fc, dataOffset, fc.size() - dataOffset);
+            lzma = new LzmaInputStream(new BufferedInputStream(is));
+            nextBlock = 0;
+        }
+
+        ByteBuffer block;
+        do {
+            byte[] buf = new byte[BLOCK_SIZE];
+            int read = IOUtils.read(lzma, buf);
+            if (read < BLOCK_SIZE) {
+                buf = Arrays.copyOf(buf, read);
+            }
+            block = ByteBuffer.wrap(buf);
+
+            if (checkpoints != null) {
+                addCheckpoint(nextBlock, buf);
+            }
+
+            if (nextBlock < index) {
+                cacheBlock(nextBlock, block);
+            }
+        } while (nextBlock++ < index);
+
+        return block;
+    }
+
+    private void addCheckpoint(int index, byte[] buf) {
+        int checkpoint = index / BLOCKS_PER_CHECKPOINT;
+        int blockInWindow = index % BLOCKS_PER_CHECKPOINT;
+
+        if (blockInWindow == 0) {
+            if (window == null) {
+                window = new byte[BundleCheckpoints.INTERVAL];
+            }
+            windowSize = 0;
+        }
+
+        System.arraycopy(buf, 0, window, windowSize, buf.length);
+        windowSize += buf.length;
+
+        // commit the window when it's full or at the end of the stream
+        boolean eof = buf.length < BLOCK_SIZE;
+        if (eof || blockInWindow == BLOCKS_PER_CHECKPOINT - 1) {
+            if (windowSize > 0) {
+                checkpoints.add(checkpoint, window, windowSize);
+            }
+            if (eof) {
+                checkpoints.dataSize(blockOffset(index) + buf.length);
+            }
+        }
+    }
+
+    private ByteBuffer restoreBlock(int index) throws IOException {
+        int checkpoint = index / BLOCKS_PER_CHECKPOINT;
+        byte[] data = checkpoints.read(checkpoint);
+
+        // split the window into blocks and cache all the other ones as well
+        ByteBuffer result = ByteBuffer.allocate(0);
+        int firstBlock = checkpoint * BLOCKS_PER_CHECKPOINT;
+        for (int i = 0; i < BLOCKS_PER_CHECKPOINT; i++) {
+            int offset = i * BLOCK_SIZE;
+            if (offset >= data.length) {
+                break;
+            }
+
+            int length = Math.min(BLOCK_SIZE, data.length - offset);
+            ByteBuffer block = ByteBuffer.wrap(data, offset, length).slice();
+            if (firstBlock + i == index) {
+                result = block;
+            } else {
+                cacheBlock(firstBlock + i, block);
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    void close() throws IOException {
+        super.close();
+        if (lzma != null) {
+            lzma.close();
+        }
+    }
+}
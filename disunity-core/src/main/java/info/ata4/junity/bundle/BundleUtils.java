@@ -12,17 +12,14 @@ package info.ata4.junity.bundle;
 import info.ata4.io.DataReader;
 import info.ata4.io.DataReaders;
 import info.ata4.io.buffer.ByteBufferChannel;
-import info.ata4.io.buffer.ByteBufferOutputStream;
+import info.ata4.util.io.FileRegion;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.ByteBuffer;
 import java.nio.channels.SeekableByteChannel;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import static java.nio.file.StandardCopyOption.*;
-import static java.nio.file.StandardOpenOption.*;
-import org.apache.commons.io.IOUtils;
+import java.util.Optional;
 
 /**
  * Asset bundle file utility class.
@@ -33,6 +30,8 @@ public class BundleUtils {
 
     private static final Charset PROP_CHARSET = Charset.forName("US-ASCII");
 
+    public static final String CHECKPOINT_EXT = "ckpt";
+
     private BundleUtils() {
     }
 
@@ -46,34 +45,42 @@ public class BundleUtils {
             is.read(header);
             String headerString = new String(header, PROP_CHARSET);
             return headerString.equals(BundleHeader.SIGNATURE_WEB)
-                    || headerString.equals(BundleHeader.SIGNATURE_RAW);
+                    || headerString.equals(BundleHeader.SIGNATURE_RAW)
+                    || headerString.equals(BundleHeader.SIGNATURE_FS + "\0");
         } catch (IOException ex) {
             return false;
         }
     }
 
-    public static SeekableByteChannel byteChannelForEntry(BundleEntry entry) throws IOException {
-        SeekableByteChannel chan;
+    /**
+     * Returns the default LZMA checkpoint sidecar file for a bundle.
+     */
+    public static Path checkpointFile(Path file) {
+        return file.resolveSibling(file.getFileName() + "." + CHECKPOINT_EXT);
+    }
 
-        // check if the entry is larger than 128 MiB
-        long size = entry.size();
-        if (size > 1 << 27) {
-            // copy entry to temporary file
-            Path tmpFile = Files.createTempFile("disunity", null);
-            Files.copy(entry.inputStream(), tmpFile, REPLACE_EXISTING);
-            chan = Files.newByteChannel(tmpFile, READ, DELETE_ON_CLOSE);
-        } else {
-            // copy entry to memory
-            ByteBuffer bb = ByteBuffer.allocateDirect((int) size);
-            IOUtils.copy(entry.inputStream(), new ByteBufferOutputStream(bb));
-            bb.flip();
-            chan = new ByteBufferChannel(bb);
+    public static SeekableByteChannel byteChannelForEntry(BundleEntry entry) throws IOException {
+        // map uncompressed entries directly
+        Optional<FileRegion> region = mappableRegion(entry);
+        if (region.isPresent()) {
+            return new ByteBufferChannel(region.get().map());
         }
 
-        return chan;
+        // otherwise read the entry on demand
+        return entry.byteChannel();
     }
 
     public static DataReader dataReaderForEntry(BundleEntry entry) throws IOException {
+        // map uncompressed entries directly
+        Optional<FileRegion> region = mappableRegion(entry);
+        if (region.isPresent()) {
+            return DataReaders.forByteBuffer(region.get().map());
+        }
+
         return DataReaders.forSeekableByteChannel(BundleUtils.byteChannelForEntry(entry));
     }
+
+    private static Optional<FileRegion> mappableRegion(BundleEntry entry) {
+        return entry.fileRegion().filter(region -> region.length() <= Integer.MAX_VALUE);
+    }
 }
@@ -12,21 +12,29 @@ package info.ata4.junity.bundle;
 import info.ata4.io.DataWriter;
 import info.ata4.io.DataWriters;
 import info.ata4.io.lzma.LzmaEncoderProps;
+import static info.ata4.junity.bundle.BundleBlockInfo.*;
+import info.ata4.junity.UnityHash128;
 import info.ata4.junity.progress.Progress;
+import info.ata4.util.function.IOConsumer;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import static java.nio.file.StandardOpenOption.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 import net.contrapunctus.lzma.LzmaOutputStream;
+import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.tuple.MutablePair;
 
@@ -36,19 +44,80 @@ import org.apache.commons.lang3.tuple.MutablePair;
  */
 public class BundleWriter implements Closeable {
 
+    // default amount of uncompressed data per UnityFS storage block, same as
+    // in bundles built by Unity
+    public static final int DEFAULT_BLOCK_SIZE = 1 << 17;
+
     private final DataWriter out;
     private final Map<BundleEntry, MutablePair<Long, Long>> levelOffsetMap = new LinkedHashMap<>();
-    private final Path dataFile;
     private Bundle bundle;
+    private int blockSize = DEFAULT_BLOCK_SIZE;
+    private int compressionScheme = COMPRESSION_LZ4HC;
+    private Executor executor;
 
     public BundleWriter(Path file) throws IOException {
         out = DataWriters.forFile(file, CREATE, WRITE, TRUNCATE_EXISTING);
-        dataFile = Files.createTempFile(file.getParent(), "uncompressedData", null);
+    }
+
+    public int blockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Sets the amount of uncompressed data per storage block in UnityFS
+     * bundles. Smaller blocks allow faster random access, larger blocks
+     * compress better.
+     *
+     * @param blockSize block size in bytes
+     */
+    public void blockSize(int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Invalid block size " + blockSize);
+        }
+        this.blockSize = blockSize;
+    }
+
+    public int compressionScheme() {
+        return compressionScheme;
+    }
+
+    /**
+     * Sets the compression scheme for the storage blocks of UnityFS bundles.
+     * Supported are {@link BundleBlockInfo#COMPRESSION_NONE},
+     * {@link BundleBlockInfo#COMPRESSION_LZMA},
+     * {@link BundleBlockInfo#COMPRESSION_LZ4} and
+     * {@link BundleBlockInfo#COMPRESSION_LZ4HC}.
+     *
+     * @param compressionScheme block compression scheme
+     */
+    public void compressionScheme(int compressionScheme) {
+        BundleBlockEncoder.checkScheme(compressionScheme);
+        this.compressionScheme = compressionScheme;
+    }
+
+    public Executor executor() {
+        return executor;
+    }
+
+    /**
+     * Sets an executor for compressing multiple storage blocks of UnityFS
+     * bundles at the same time. The blocks are still written in order.
+     *
+     * @param executor executor for compression tasks or null to compress all
+     *                 blocks on the calling thread
+     */
+    public void executor(Executor executor) {
+        this.executor = executor;
     }
 
     public void write(Bundle bundle, Progress progress) throws IOException {
         this.bundle = bundle;
 
+        if (bundle.header().signature().equals(BundleHeader.SIGNATURE_FS)) {
+            writeFS(progress);
+            return;
+        }
+
         // add offset placeholders
         levelOffsetMap.clear();
         bundle.entries().stream()
@@ -70,24 +139,23 @@ public class BundleWriter implements Closeable {
         out.writeStruct(header);
         header.headerSize((int) out.position());
 
+        // lay out the entries, which determines the data size in advance
+        long basePosition = header.compressed() ? 0 : out.position();
+        List<BundleEntryInfo> entryInfos = new ArrayList<>();
+        long dataSize = layoutData(entryInfos, basePosition);
+
         // write bundle data
         if (header.compressed()) {
-            // write data to temporary file
-            try (DataWriter outData = DataWriters.forFile(dataFile,
-                        CREATE, WRITE, TRUNCATE_EXISTING)) {
-                writeData(outData, progress);
-            }
-
             // configure LZMA encoder
             LzmaEncoderProps props = new LzmaEncoderProps();
             props.setDictionarySize(1 << 23); // 8 MiB
             props.setNumFastBytes(273); // maximum
-            props.setUncompressedSize(Files.size(dataFile));
+            props.setUncompressedSize(dataSize);
             props.setEndMarkerMode(true);
 
-            // stream the temporary bundle data compressed into the bundle file
+            // stream the bundle data compressed into the bundle file
             try (OutputStream os = new LzmaOutputStream(new BufferedOutputStream(out.stream()), props)) {
-                Files.copy(dataFile, os);
+                writeData(os, entryInfos, basePosition, progress);
             }
 
             for (MutablePair<Long, Long> levelOffset : levelOffsetMap.values()) {
@@ -95,7 +163,9 @@ public class BundleWriter implements Closeable {
             }
         } else {
             // write data directly to file
-            writeData(out, progress);
+            try (OutputStream os = new BufferedOutputStream(out.stream())) {
+                writeData(os, entryInfos, basePosition, progress);
+            }
         }
 
         // update header
@@ -107,61 +177,404 @@ public class BundleWriter implements Closeable {
         out.writeStruct(header);
     }
 
-    private void writeData(DataWriter out, Progress progress) throws IOException {
-        // write entry list
+    /**
+     * Calculates the offsets of all entries and the level offsets from the
+     * entry sizes. Entries start at 4 byte aligned positions in the target,
+     * whose data area begins at basePosition.
+     *
+     * @return size of the data area
+     */
+    private long layoutData(List<BundleEntryInfo> entryInfos, long basePosition)
+            throws IOException {
         List<BundleEntry> entries = bundle.entries();
-        long baseOffset = out.position();
-        out.writeInt(entries.size());
 
-        List<BundleEntryInfo> entryInfos = new ArrayList<>(entries.size());
         for (BundleEntry entry : entries) {
             BundleEntryInfo entryInfo = new BundleEntryInfo();
             entryInfo.name(entry.name());
             entryInfo.size(entry.size());
-            out.writeStruct(entryInfo);
             entryInfos.add(entryInfo);
         }
 
-        // write entry data
-        for (int i = 0; i < entries.size(); i++) {
-            out.align(4);
+        // the entry list has a fixed size that doesn't depend on the offsets
+        long position = basePosition + entryList(entryInfos).length;
 
+        for (int i = 0; i < entries.size(); i++) {
             BundleEntry entry = entries.get(i);
             BundleEntryInfo entryInfo = entryInfos.get(i);
 
-            progress.update(Optional.of(entry.name()), i / (double) entries.size());
-
-            entryInfo.offset(out.position() - baseOffset);
+            position = (position + 3) & ~3L;
+            entryInfo.offset(position - basePosition);
 
             if (i == 0) {
                 bundle.header().dataHeaderSize(entryInfo.offset());
             }
 
-            try (
-                InputStream is = entry.inputStream();
-                OutputStream os = out.stream();
-            ) {
-                IOUtils.copy(is, os);
-            }
+            position += entry.size();
 
             MutablePair<Long, Long> levelOffset = levelOffsetMap.get(entry);
             if (levelOffset != null) {
-                long offset = out.position() - baseOffset;
+                long offset = position - basePosition;
                 levelOffset.setLeft(offset);
                 levelOffset.setRight(offset);
             }
         }
 
-        // update offsets
-        out.position(baseOffset + 4);
+        return position - basePosition;
+    }
+
+    private byte[] entryList(List<BundleEntryInfo> entryInfos) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DataWriter outList = DataWriters.forOutputStream(bos);
+        outList.writeInt(entryInfos.size());
+        for (BundleEntryInfo entryInfo : entryInfos) {
+            outList.writeStruct(entryInfo);
+        }
+        outList.flush();
+        return bos.toByteArray();
+    }
+
+    private void writeData(OutputStream os, List<BundleEntryInfo> entryInfos,
+            long basePosition, Progress progress) throws IOException {
+        List<BundleEntry> entries = bundle.entries();
+
+        // write entry list
+        byte[] entryList = entryList(entryInfos);
+        os.write(entryList);
+        long position = entryList.length;
+
+        // write entry data
+        for (int i = 0; i < entries.size(); i++) {
+            BundleEntry entry = entries.get(i);
+            BundleEntryInfo entryInfo = entryInfos.get(i);
+
+            progress.update(Optional.of(entry.name()), i / (double) entries.size());
+
+            // alignment padding
+            os.write(new byte[(int) (entryInfo.offset() - position)]);
+
+            writeEntry(os, entry);
+
+            position = entryInfo.offset() + entry.size();
+        }
+    }
+
+    private void writeFS(Progress progress) throws IOException {
+        List<BundleEntry> entries = bundle.entries();
+
+        // entries are stored back to back in the data area, so the entry and
+        // block tables can be laid out before writing any data
+        List<BundleEntryInfo> entryInfos = new ArrayList<>(entries.size());
+        long dataSize = 0;
+        for (BundleEntry entry : entries) {
+            BundleEntryInfoFS entryInfo = new BundleEntryInfoFS();
+            entryInfo.name(entry.name());
+            entryInfo.offset(dataSize);
+            entryInfo.size(entry.size());
+            entryInfo.flags(entryFlags(entry));
+            entryInfos.add(entryInfo);
+            dataSize += entry.size();
+        }
+
+        long numBlocks = (dataSize + blockSize - 1) / blockSize;
+
+        writeFS(bundle.header(), bundle.dataHash(), entryInfos, numBlocks, os -> {
+            for (int i = 0; i < entries.size(); i++) {
+                BundleEntry entry = entries.get(i);
+
+                progress.update(Optional.of(entry.name()), i / (double) entries.size());
+
+                // entries may start and end anywhere inside a block
+                writeEntry(os, entry);
+            }
+        });
+
+        progress.update(Optional.empty(), 1);
+    }
+
+    /**
+     * Writes a UnityFS bundle with the given entry table and a data area with
+     * the given number of storage blocks, which is produced by the block
+     * writer.
+     */
+    private void writeFS(BundleHeader header, UnityHash128 dataHash,
+            List<BundleEntryInfo> entryInfos, long numBlocks,
+            IOConsumer<BundleBlockOutputStream> blockWriter) throws IOException {
+        // placeholder block table, filled in while writing the blocks
+        List<BundleBlockInfo> blockInfos = new ArrayList<>();
+        for (long i = 0; i < numBlocks; i++) {
+            blockInfos.add(new BundleBlockInfo());
+        }
+
+        // the data header is stored uncompressed, which keeps its size
+        // independent from the compressed block sizes, so it can be written
+        // with placeholders first and be updated in place at the end
+        header.flags(0x40 | COMPRESSION_NONE);
+
+        out.writeStruct(header);
+        long dataHeaderOffset = out.position();
+        writeDataHeaderFS(dataHash, blockInfos, entryInfos);
+
+        int dataHeaderSize = (int) (out.position() - dataHeaderOffset);
+        header.dataHeaderSize(dataHeaderSize);
+        header.compressedDataHeaderSize(dataHeaderSize);
+        header.headerSize((int) out.position());
+
+        BundleBlockOutputStream os = new BundleBlockOutputStream(out, blockSize,
+                compressionScheme, executor);
+        blockWriter.accept(os);
+        os.close();
+
+        List<BundleBlockInfo> blockInfosWritten = os.blockInfos();
+        if (blockInfosWritten.size() != numBlocks) {
+            throw new BundleException("Block count mismatch, expected "
+                    + numBlocks + " blocks, wrote " + blockInfosWritten.size());
+        }
+
+        // update headers
+        header.completeFileSize(out.size());
+
+        out.position(0);
+        out.writeStruct(header);
+        writeDataHeaderFS(dataHash, blockInfosWritten, entryInfos);
+    }
+
+    private void writeDataHeaderFS(UnityHash128 dataHash, List<BundleBlockInfo> blockInfos,
+            List<BundleEntryInfo> entryInfos) throws IOException {
+        out.writeStruct(dataHash);
+
+        out.writeInt(blockInfos.size());
+        for (BundleBlockInfo blockInfo : blockInfos) {
+            out.writeStruct(blockInfo);
+        }
+
+        out.writeInt(entryInfos.size());
         for (BundleEntryInfo entryInfo : entryInfos) {
             out.writeStruct(entryInfo);
         }
     }
 
+    private static void writeEntry(OutputStream os, BundleEntry entry) throws IOException {
+        try (InputStream is = entry.inputStream()) {
+            if (IOUtils.copyLarge(is, os, 0, entry.size()) != entry.size()) {
+                throw new BundleException("Unexpected end of data in entry " + entry.name());
+            }
+        }
+    }
+
+    /**
+     * Writes a copy of a bundle with some of its entries replaced.
+     *
+     * For UnityFS bundles, only the storage blocks that overlap replaced
+     * entries are recompressed with the block size and compression scheme of
+     * this writer. All other blocks are copied from the source file as they
+     * are. Since blocks may have different sizes, the blocks after a replaced
+     * entry don't need to be realigned if its size changes. Other bundles are
+     * rewritten completely.
+     *
+     * @param source reader of the source bundle, which must have been read
+     *               already and must not be the target file
+     * @param replacements new entries, each one replaces the entry of the
+     *                     source bundle with the same name
+     * @param progress progress
+     */
+    public void repack(BundleReader source, Collection<BundleEntry> replacements,
+            Progress progress) throws IOException {
+        Bundle sourceBundle = source.bundle();
+        if (sourceBundle == null) {
+            throw new IllegalStateException("Source bundle hasn't been read");
+        }
+
+        Map<String, BundleEntry> replacementMap = new HashMap<>();
+        for (BundleEntry entry : replacements) {
+            replacementMap.put(entry.name(), entry);
+        }
+
+        for (String name : replacementMap.keySet()) {
+            if (sourceBundle.entryInfos().stream().noneMatch(info -> info.name().equals(name))) {
+                throw new BundleException("No entry named " + name + " in source bundle");
+            }
+        }
+
+        BundleChunkReader chunkReader = source.chunkReader();
+        if (chunkReader == null || chunkReader.blockCount() == 0) {
+            // only chunked bundles have blocks that can be reused
+            Bundle target = new Bundle();
+            copyHeader(sourceBundle.header(), target.header());
+            System.arraycopy(sourceBundle.dataHash().hash(), 0, target.dataHash().hash(), 0, 16);
+            sourceBundle.entries().forEach(entry -> target.entries().add(
+                    replacementMap.getOrDefault(entry.name(), entry)));
+            write(target, progress);
+            return;
+        }
+
+        repackFS(sourceBundle, chunkReader, replacementMap, progress);
+    }
+
+    private void repackFS(Bundle sourceBundle, BundleChunkReader chunkReader,
+            Map<String, BundleEntry> replacementMap, Progress progress) throws IOException {
+        // entry infos are sorted by offset
+        List<BundleEntryInfo> sourceInfos = sourceBundle.entryInfos();
+        int numSourceBlocks = chunkReader.blockCount();
+        long sourceDataSize = chunkReader.size();
+
+        // find the blocks that contain the data of replaced entries and
+        // assign each replaced entry to its first block, empty entries belong
+        // to the block at their offset
+        boolean[] dirty = new boolean[numSourceBlocks];
+        Map<BundleEntryInfo, Integer> firstBlocks = new HashMap<>();
+        for (BundleEntryInfo info : sourceInfos) {
+            if (!replacementMap.containsKey(info.name())) {
+                continue;
+            }
+
+            if (info.offset() < 0 || info.offset() + info.size() > sourceDataSize) {
+                throw new BundleException("Entry " + info.name() + " outside of data area");
+            }
+
+            int first;
+            int last;
+            if (info.size() > 0) {
+                first = chunkReader.blockIndex(info.offset());
+                last = chunkReader.blockIndex(info.offset() + info.size() - 1);
+            } else if (info.offset() < sourceDataSize) {
+                first = last = chunkReader.blockIndex(info.offset());
+            } else {
+                first = last = numSourceBlocks - 1;
+            }
+
+            Arrays.fill(dirty, first, last + 1, true);
+            firstBlocks.put(info, first);
+        }
+
+        // lay out the new entry table, entries after replaced entries are
+        // moved by the size difference
+        List<BundleEntryInfo> entryInfos = new ArrayList<>(sourceInfos.size());
+        long delta = 0;
+        for (BundleEntryInfo info : sourceInfos) {
+            BundleEntry replacement = replacementMap.get(info.name());
+
+            BundleEntryInfoFS entryInfo = new BundleEntryInfoFS();
+            entryInfo.name(info.name());
+            entryInfo.offset(info.offset() + delta);
+            entryInfo.size(replacement != null ? replacement.size() : info.size());
+            entryInfo.flags(((BundleEntryInfoFS) info).flags());
+            entryInfos.add(entryInfo);
+
+            delta += entryInfo.size() - info.size();
+        }
+
+        // clean blocks are kept, each run of dirty blocks is replaced by new
+        // blocks for its updated content
+        long numBlocks = 0;
+        for (int i = 0; i < numSourceBlocks; i++) {
+            if (!dirty[i]) {
+                numBlocks++;
+                continue;
+            }
+
+            int runEnd = runEnd(dirty, i);
+            long runSize = chunkReader.blockOffset(runEnd) - chunkReader.blockOffset(i);
+            for (BundleEntryInfo info : sourceInfos) {
+                Integer first = firstBlocks.get(info);
+                if (first != null && first >= i && first < runEnd) {
+                    runSize += replacementMap.get(info.name()).size() - info.size();
+                }
+            }
+
+            numBlocks += (runSize + blockSize - 1) / blockSize;
+            i = runEnd - 1;
+        }
+
+        BundleHeader header = new BundleHeader();
+        copyHeader(sourceBundle.header(), header);
+
+        writeFS(header, sourceBundle.dataHash(), entryInfos, numBlocks, os -> {
+            for (int i = 0; i < numSourceBlocks; i++) {
+                if (!dirty[i]) {
+                    os.writeEncodedBlock(chunkReader.blockInfo(i), chunkReader.readRawBlock(i));
+                    continue;
+                }
+
+                // replace the entries in the uncompressed data of the run
+                int runEnd = runEnd(dirty, i);
+                long position = chunkReader.blockOffset(i);
+                for (BundleEntryInfo info : sourceInfos) {
+                    Integer first = firstBlocks.get(info);
+                    if (first == null || first < i || first >= runEnd) {
+                        continue;
+                    }
+
+                    if (info.offset() < position) {
+                        throw new BundleException("Entry " + info.name() + " overlaps other entries");
+                    }
+
+                    progress.update(Optional.of(info.name()), i / (double) numSourceBlocks);
+
+                    copySourceData(os, chunkReader, position, info.offset());
+                    writeEntry(os, replacementMap.get(info.name()));
+                    position = info.offset() + info.size();
+                }
+                copySourceData(os, chunkReader, position, chunkReader.blockOffset(runEnd));
+
+                os.endBlock();
+                i = runEnd - 1;
+            }
+        });
+
+        progress.update(Optional.empty(), 1);
+    }
+
+    /**
+     * Returns the index after the last dirty block of the run that starts at
+     * the given index.
+     */
+    private static int runEnd(boolean[] dirty, int start) {
+        int end = start;
+        while (end < dirty.length && dirty[end]) {
+            end++;
+        }
+        return end;
+    }
+
+    private static void copySourceData(OutputStream os, BundleChunkReader chunkReader,
+            long start, long end) throws IOException {
+        if (end <= start) {
+            return;
+        }
+
+        try (InputStream is = chunkReader.inputStream(start, end - start)) {
+            if (IOUtils.copyLarge(is, os) != end - start) {
+                throw new BundleException("Unexpected end of bundle data");
+            }
+        }
+    }
+
+    private static void copyHeader(BundleHeader source, BundleHeader target) {
+        target.signature(source.signature());
+        target.streamVersion(source.streamVersion());
+        target.unityVersion(source.unityVersion());
+        target.unityRevision(source.unityRevision());
+    }
+
+    private static long entryFlags(BundleEntry entry) {
+        // keep the flags of entries from other UnityFS bundles
+        if (entry instanceof BundleInternalEntry) {
+            BundleEntryInfo info = ((BundleInternalEntry) entry).info();
+            if (info instanceof BundleEntryInfoFS) {
+                return ((BundleEntryInfoFS) info).flags();
+            }
+        }
+
+        // serialized files are flagged with 4, resource files are not
+        String ext = FilenameUtils.getExtension(entry.name());
+        if (BundleEntry.isResource(entry) || ext.equals("resS")) {
+            return 0;
+        }
+        return 4;
+    }
+
     @Override
     public void close() throws IOException {
         out.close();
-        Files.deleteIfExists(dataFile);
     }
 }
@@ -0,0 +1,44 @@
+/*
+ ** 2026 October 18
+ **
+ ** The author disclaims copyright to this source code. In place of
+ ** a legal notice, here is a blessing:
+ **    May you do good and not evil.
+ **    May you find forgiveness for yourself and forgive others.
+ **    May you share freely, never taking more than you give.
+ */
+package info.ata4.junity.serialize;
+
+/**
+ * Defines how {@link SerializedFileReader} provides the data of the objects in
+ * a serialized file.
+ *
+ * @author Nico Bergemann <barracuda415 at yahoo.de>
+ */
+public enum ObjectDataMode {
+
+    /**
+     * Copy the data of every object into its own heap buffer.
+     */
+    EAGER,
+
+    /**
+     * Map the file into memory once and use read-only slices of the mapping
+     * for the object data. Falls back to EAGER if the reader wasn't created
+     * for a file.
+     */
+    MAPPED,
+
+    /**
+     * Read the data of an object on the first call to
+     * {@link SerializedObjectData#buffer()}, which requires the reader to be
+     * still open.
+     */
+    LAZY,
+
+    /**
+     * Don't read any object data. Only the object infos are available and
+     * {@link SerializedObjectData#buffer()} returns null.
+     */
+    NONE
+}
@@ -0,0 +1,111 @@
+/*
+ ** 2026 October 18
+ **
+ ** The author disclaims copyright to this source code. In place of
+ ** a legal notice, here is a blessing:
+ **    May you do good and not evil.
+ **    May you find forgiveness for yourself and forgive others.
+ **    May you share freely, never taking more than you give.
+ */
+package info.ata4.junity.serialize;
+
+import info.ata4.io.DataReader;
+import info.ata4.io.buffer.ByteBufferUtils;
+import info.ata4.junity.serialize.objectinfo.ObjectInfo;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Reads the data of multiple objects in file order. Objects that are close to
+ * each other are combined to larger sequential reads, which are then sliced
+ * into the buffers of the individual objects.
+ *
+ * @author Nico Bergemann <barracuda415 at yahoo.de>
+ */
+class ObjectReadPlanner {
+
+    // maximum size of a combined read
+    static final long MAX_READ_SIZE = 1 << 23;
+
+    // maximum number of unused bytes between two objects of a combined read
+    static final long MAX_GAP_SIZE = 1 << 16;
+
+    private final long dataOffset;
+    private long bytesRequested;
+    private long bytesRead;
+    private int reads;
+
+    ObjectReadPlanner(long dataOffset) {
+        this.dataOffset = dataOffset;
+    }
+
+    /**
+     * Returns the total length of all objects read so far.
+     */
+    long bytesRequested() {
+        return bytesRequested;
+    }
+
+    /**
+     * Returns the number of bytes that were actually read, including the gaps
+     * between combined objects.
+     */
+    long bytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Returns the number of read operations.
+     */
+    int reads() {
+        return reads;
+    }
+
+    void read(DataReader in, List<SerializedObjectData> objects) throws IOException {
+        List<SerializedObjectData> sorted = new ArrayList<>(objects);
+        sorted.sort(Comparator.comparingLong(object -> object.info().offset()));
+
+        int start = 0;
+        while (start < sorted.size()) {
+            long readStart = sorted.get(start).info().offset();
+            long readEnd = readStart;
+
+            // extend the read as long as the next object is close enough
+            int end = start;
+            while (end < sorted.size()) {
+                ObjectInfo info = sorted.get(end).info();
+                long objectEnd = info.offset() + info.length();
+                if (end > start && (info.offset() - readEnd > MAX_GAP_SIZE
+                        || objectEnd - readStart > MAX_READ_SIZE)) {
+                    break;
+                }
+                readEnd = Math.max(readEnd, objectEnd);
+                end++;
+            }
+
+            ByteBuffer bb = ByteBufferUtils.allocate((int) (readEnd - readStart));
+            in.position(dataOffset + readStart);
+            in.readBuffer(bb);
+
+            reads++;
+            bytesRead += bb.capacity();
+
+            for (int i = start; i < end; i++) {
+                SerializedObjectData object = sorted.get(i);
+                ObjectInfo info = object.info();
+
+                ByteBuffer slice = bb.duplicate();
+                slice.limit((int) (info.offset() - readStart + info.length()));
+                slice.position((int) (info.offset() - readStart));
+                object.buffer(slice.slice());
+
+                bytesRequested += info.length();
+            }
+
+            start = end;
+        }
+    }
+}
@@ -33,4 +33,15 @@ public class SerializedFileException extends IOException {
     public SerializedFileException(String msg) {
         super(msg);
     }
+
+    /**
+     * Constructs an instance of
+     * <code>AssetException</code> with the specified detail message and cause.
+     *
+     * @param msg the detail message.
+     * @param cause the cause.
+     */
+    public SerializedFileException(String msg, Throwable cause) {
+        super(msg, cause);
+    }
 }
@@ -28,6 +28,7 @@ import info.ata4.junity.serialize.typetree.Type;
 import info.ata4.junity.serialize.typetree.TypeTree;
 import info.ata4.junity.serialize.typetree.TypeTreeV1;
 import info.ata4.junity.serialize.typetree.TypeTreeV2;
+import info.ata4.junity.serialize.typetree.TypeTreePool;
 import info.ata4.junity.serialize.typetree.TypeTreeV3;
 import info.ata4.junity.serialize.typetree.TypeV1;
 import info.ata4.junity.serialize.typetree.TypeV2;
@@ -59,6 +60,7 @@ public class SerializedFileMetadata implements Struct {
     private FileIdentifierTable externals;
 
     private int version;
+    private TypeTreePool typeTreePool;
 
     public DataBlock typeTreeBlock() {
         return typeTreeBlock;
@@ -93,6 +95,22 @@ public class SerializedFileMetadata implements Struct {
         this.version = version;
     }
 
+    /**
+     * Returns the pool for embedded type trees or null if the type trees
+     * aren't shared with other files.
+     */
+    public TypeTreePool typeTreePool() {
+        return typeTreePool;
+    }
+
+    /**
+     * Sets the pool for embedded type trees in Unity 5 files, which is used
+     * when reading the metadata.
+     */
+    public void typeTreePool(TypeTreePool typeTreePool) {
+        this.typeTreePool = typeTreePool;
+    }
+
     public <T extends Type> TypeTree<T> typeTree() {
         return typeTree;
     }
@@ -129,7 +147,9 @@ public class SerializedFileMetadata implements Struct {
     public void read(DataReader in) throws IOException {
         // load type tree
         if (version > 13) {
-            typeTree = new TypeTreeV3(TypeV2.class);
+            TypeTreeV3<TypeV2> typeTreeV3 = new TypeTreeV3<>(TypeV2.class);
+            typeTreeV3.pool(typeTreePool);
+            typeTree = typeTreeV3;
         } else if (version > 6) {
             typeTree = new TypeTreeV2(TypeV1.class);
         } else {
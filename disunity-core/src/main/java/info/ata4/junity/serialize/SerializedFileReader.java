@@ -15,20 +15,31 @@ import info.ata4.io.buffer.ByteBufferUtils;
 import info.ata4.junity.serialize.objectinfo.ObjectInfo;
 import info.ata4.junity.serialize.typetree.Type;
 import info.ata4.junity.serialize.typetree.TypeRoot;
+import info.ata4.junity.serialize.typetree.TypeTreePool;
 import info.ata4.log.LogUtils;
+import static info.ata4.util.function.IOFunction.uncheck;
 import info.ata4.util.io.DataBlock;
 import java.io.Closeable;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import static java.nio.file.StandardOpenOption.READ;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import org.apache.commons.io.FilenameUtils;
 
 /**
@@ -39,9 +50,18 @@ public class SerializedFileReader implements Closeable {
 
     private static final Logger L = LogUtils.getLogger();
 
+    // maximum size of a single memory mapping
+    private static final long MAX_MAP_SIZE = 1 << 30;
+
     private final DataReader in;
+    private Path file;
+    private ByteBuffer fileBuffer;
     private SerializedFile serialized;
     private ByteBuffer resourceBuffer;
+    private ObjectDataMode objectDataMode = ObjectDataMode.EAGER;
+    private TypeTreePool typeTreePool;
+    private ObjectReadPlanner readPlanner;
+    private boolean closed;
 
     public SerializedFileReader(Path file) throws IOException {
         String fileName = file.getFileName().toString();
@@ -74,8 +94,10 @@ public class SerializedFileReader implements Closeable {
             }
 
             // load all parts to one byte buffer
-            in = DataReaders.forByteBuffer(ByteBufferUtils.load(parts));
+            fileBuffer = ByteBufferUtils.load(parts);
+            in = DataReaders.forByteBuffer(fileBuffer);
         } else {
+            this.file = file;
             in = DataReaders.forFile(file, READ);
         }
     }
@@ -84,6 +106,52 @@ public class SerializedFileReader implements Closeable {
         this.in = in;
     }
 
+    public ObjectDataMode objectDataMode() {
+        return objectDataMode;
+    }
+
+    public void objectDataMode(ObjectDataMode objectDataMode) {
+        this.objectDataMode = objectDataMode;
+    }
+
+    public TypeTreePool typeTreePool() {
+        return typeTreePool;
+    }
+
+    /**
+     * Sets a pool that shares identical type trees between files, such as
+     * {@link TypeTreePool#shared()}. Pooled type trees must not be modified.
+     * By default, each file gets its own type trees.
+     */
+    public void typeTreePool(TypeTreePool typeTreePool) {
+        this.typeTreePool = typeTreePool;
+    }
+
+    /**
+     * Returns the total length of all objects read by {@link #read()} in
+     * eager mode.
+     */
+    public long objectBytesRequested() {
+        return readPlanner != null ? readPlanner.bytesRequested() : 0;
+    }
+
+    /**
+     * Returns the number of bytes that were read for the object data by
+     * {@link #read()} in eager mode. Objects that are close to each other are
+     * read in one go, so this also includes the padding and gaps between them.
+     */
+    public long objectBytesRead() {
+        return readPlanner != null ? readPlanner.bytesRead() : 0;
+    }
+
+    /**
+     * Returns the number of read operations that were used to read the object
+     * data by {@link #read()} in eager mode.
+     */
+    public int objectReads() {
+        return readPlanner != null ? readPlanner.reads() : 0;
+    }
+
     public SerializedFile read() throws IOException {
         this.serialized = new SerializedFile();
 
@@ -127,6 +195,7 @@ public class SerializedFileReader implements Closeable {
         DataBlock metadataBlock = serialized.metadataBlock();
         metadataBlock.markBegin(in);
         metadata.version(header.version());
+        metadata.typeTreePool(typeTreePool);
         in.readStruct(metadata);
         metadataBlock.markEnd(in);
         L.log(Level.FINER, "metadataBlock: {0}", metadataBlock);
@@ -140,9 +209,17 @@ public class SerializedFileReader implements Closeable {
         SerializedFileMetadata metadata = serialized.metadata();
 
         Map<Long, ObjectInfo> objectInfoMap = metadata.objectInfoTable().infoMap();
-        Map<Integer, TypeRoot<Type>> typeTreeMap = metadata.typeTree().typeMap();
         List<SerializedObjectData> objectData = serialized.objectData();
 
+        boolean mapped = objectDataMode == ObjectDataMode.MAPPED;
+        if (mapped && file == null && fileBuffer == null) {
+            L.fine("Can't map object data without file, reading it instead");
+            mapped = false;
+        }
+
+        boolean eager = objectDataMode == ObjectDataMode.EAGER
+                || (objectDataMode == ObjectDataMode.MAPPED && !mapped);
+
         for (Map.Entry<Long, ObjectInfo> infoEntry : objectInfoMap.entrySet()) {
             ObjectInfo info = infoEntry.getValue();
             long id = infoEntry.getKey();
@@ -154,29 +231,151 @@ public class SerializedFileReader implements Closeable {
             SerializedObjectData object = new SerializedObjectData(id);
             object.info(info);
 
-            // create and read object data buffer
-            ByteBuffer buf = ByteBufferUtils.allocate((int) info.length());
-
-            in.position(ofs);
-            in.readBuffer(buf);
-
-            object.buffer(buf);
-
-            // get type tree if possible
-            TypeRoot typeRoot = typeTreeMap.get(info.typeID());
-            if (typeRoot != null) {
-                object.typeTree(typeRoot.nodes());
+            if (objectDataMode == ObjectDataMode.LAZY) {
+                object.buffer(() -> uncheck(this::allocateObjectBuffer).apply(info));
             }
 
+            typeTree(object);
+
             objectData.add(object);
         }
 
+        if (mapped) {
+            mapObjects(objectData);
+        } else if (eager) {
+            // read objects in file order rather than in path ID order to
+            // avoid random seeks
+            readPlanner = new ObjectReadPlanner(header.dataOffset());
+            readPlanner.read(in, objectData);
+            L.log(Level.FINER, "Object data: {0} bytes requested, {1} bytes read in {2} reads",
+                    new Object[] {readPlanner.bytesRequested(), readPlanner.bytesRead(), readPlanner.reads()});
+        }
+
         DataBlock objectDataBlock = serialized.objectDataBlock();
         objectDataBlock.offset(ofsMin);
         objectDataBlock.endOffset(ofsMax);
         L.log(Level.FINER, "objectDataBlock: {0}", objectDataBlock);
     }
 
+    private void typeTree(SerializedObjectData object) {
+        // get type tree if possible, but only create its nodes when the
+        // object actually needs them
+        Map<Integer, TypeRoot<Type>> typeTreeMap = serialized.metadata().typeTree().typeMap();
+        TypeRoot<Type> typeRoot = typeTreeMap.get(object.info().typeID());
+        if (typeRoot != null) {
+            object.typeTree(typeRoot::nodes);
+        }
+    }
+
+    private ByteBuffer allocateObjectBuffer(ObjectInfo info) throws IOException {
+        // create and read object data buffer
+        return readObjectBuffer(info, ByteBufferUtils.allocate((int) info.length()));
+    }
+
+    private synchronized ByteBuffer readObjectBuffer(ObjectInfo info, ByteBuffer buf) throws IOException {
+        if (closed) {
+            throw new SerializedFileException("Serialized file reader is closed");
+        }
+
+        in.position(serialized.header().dataOffset() + info.offset());
+        in.readBuffer(buf);
+        buf.rewind();
+
+        return buf;
+    }
+
+    /**
+     * Returns a stream that reads the objects one by one in the order in which
+     * they are stored in the file, independently from the object data mode.
+     * Each object gets its own buffer, so it may be kept after the stream has
+     * advanced. {@link #read()} must have been called before, preferably with
+     * {@link ObjectDataMode#NONE} to keep the memory usage constant.
+     *
+     * @return sequential stream of objects
+     */
+    public Stream<SerializedObjectData> objects() {
+        return objects(false);
+    }
+
+    /**
+     * Returns a stream that reads the objects one by one in the order in which
+     * they are stored in the file.
+     *
+     * @param reuseBuffer if true, the buffers of all objects share the same
+     *                    scratch buffer, which means that the data of an
+     *                    object is only valid until the stream advances
+     * @return sequential stream of objects
+     * @see #objects()
+     */
+    public Stream<SerializedObjectData> objects(boolean reuseBuffer) {
+        if (serialized == null) {
+            throw new IllegalStateException("Serialized file hasn't been read yet");
+        }
+
+        List<Map.Entry<Long, ObjectInfo>> infos = new ArrayList<>(
+                serialized.metadata().objectInfoTable().infoMap().entrySet());
+        infos.sort(Comparator.comparingLong(entry -> entry.getValue().offset()));
+
+        Iterator<SerializedObjectData> it = new ObjectIterator(infos.iterator(), reuseBuffer);
+        return StreamSupport.stream(Spliterators.spliterator(it, infos.size(),
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    private void mapObjects(List<SerializedObjectData> objectData) throws IOException {
+        long dataOffset = serialized.header().dataOffset();
+
+        // split files are already in memory and can be sliced directly
+        if (fileBuffer != null) {
+            for (SerializedObjectData object : objectData) {
+                ObjectInfo info = object.info();
+                object.buffer(slice(fileBuffer, dataOffset + info.offset(), info.length()));
+            }
+            return;
+        }
+
+        // sort by offset so that neighboring objects share the same mapping
+        List<SerializedObjectData> sorted = new ArrayList<>(objectData);
+        sorted.sort(Comparator.comparingLong(object -> object.info().offset()));
+
+        try (FileChannel fc = FileChannel.open(file, READ)) {
+            int start = 0;
+            while (start < sorted.size()) {
+                long mapStart = dataOffset + sorted.get(start).info().offset();
+                long mapEnd = mapStart;
+
+                // map as many objects as possible at once, mappings are
+                // limited to 2 GiB
+                int end = start;
+                while (end < sorted.size()) {
+                    ObjectInfo info = sorted.get(end).info();
+                    long objectEnd = dataOffset + info.offset() + info.length();
+                    if (end > start && objectEnd - mapStart > MAX_MAP_SIZE) {
+                        break;
+                    }
+                    mapEnd = Math.max(mapEnd, objectEnd);
+                    end++;
+                }
+
+                ByteBuffer bb = fc.map(MapMode.READ_ONLY, mapStart, mapEnd - mapStart);
+                for (int i = start; i < end; i++) {
+                    SerializedObjectData object = sorted.get(i);
+                    ObjectInfo info = object.info();
+                    long ofs = dataOffset + info.offset() - mapStart;
+                    object.buffer(slice(bb, ofs, info.length()));
+                }
+
+                start = end;
+            }
+        }
+    }
+
+    private static ByteBuffer slice(ByteBuffer bb, long offset, long length) {
+        ByteBuffer dup = bb.duplicate();
+        dup.limit((int) (offset + length));
+        dup.position((int) offset);
+        return dup.slice();
+    }
+
     private void readResourceStream(Path streamFile) throws IOException {
         if (Files.exists(streamFile)) {
             L.log(Level.FINE, "Found resource stream file {0}", streamFile.getFileName());
@@ -184,8 +383,57 @@ public class SerializedFileReader implements Closeable {
         }
     }
 
+    private class ObjectIterator implements Iterator<SerializedObjectData> {
+
+        private final Iterator<Map.Entry<Long, ObjectInfo>> infos;
+        private final boolean reuseBuffer;
+        private ByteBuffer scratch;
+
+        private ObjectIterator(Iterator<Map.Entry<Long, ObjectInfo>> infos, boolean reuseBuffer) {
+            this.infos = infos;
+            this.reuseBuffer = reuseBuffer;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return infos.hasNext();
+        }
+
+        @Override
+        public SerializedObjectData next() {
+            Map.Entry<Long, ObjectInfo> infoEntry = infos.next();
+            ObjectInfo info = infoEntry.getValue();
+
+            SerializedObjectData object = new SerializedObjectData(infoEntry.getKey());
+            object.info(info);
+            typeTree(object);
+
+            try {
+                if (reuseBuffer) {
+                    int length = (int) info.length();
+
+                    // grow scratch buffer if required
+                    if (scratch == null || scratch.capacity() < length) {
+                        scratch = ByteBufferUtils.allocate(length);
+                    }
+
+                    scratch.clear();
+                    scratch.limit(length);
+                    object.buffer(readObjectBuffer(info, scratch.slice()));
+                } else {
+                    object.buffer(allocateObjectBuffer(info));
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+
+            return object;
+        }
+    }
+
     @Override
-    public void close() throws IOException {
+    public synchronized void close() throws IOException {
+        closed = true;
         in.close();
     }
 }
@@ -13,6 +13,7 @@ import info.ata4.junity.serialize.objectinfo.ObjectInfo;
 import info.ata4.junity.serialize.typetree.Type;
 import info.ata4.util.collection.Node;
 import java.nio.ByteBuffer;
+import java.util.function.Supplier;
 
 /**
  *
@@ -23,7 +24,9 @@ public class SerializedObjectData {
     private final long id;
     private ObjectInfo info;
     private ByteBuffer buffer;
+    private Supplier<ByteBuffer> bufferSupplier;
     private Node<Type> typeTree;
+    private Supplier<Node<Type>> typeTreeSupplier;
 
     public SerializedObjectData(long id) {
         this.id = id;
@@ -42,18 +45,40 @@ public class SerializedObjectData {
     }
 
     public ByteBuffer buffer() {
+        // load buffer on first access if required
+        if (buffer == null && bufferSupplier != null) {
+            buffer = bufferSupplier.get();
+            bufferSupplier = null;
+        }
         return buffer;
     }
 
     public void buffer(ByteBuffer buffer) {
         this.buffer = buffer;
+        this.bufferSupplier = null;
+    }
+
+    public void buffer(Supplier<ByteBuffer> bufferSupplier) {
+        this.buffer = null;
+        this.bufferSupplier = bufferSupplier;
     }
 
     public Node<Type> typeTree() {
+        // resolve type tree on first access if required
+        if (typeTree == null && typeTreeSupplier != null) {
+            typeTree = typeTreeSupplier.get();
+            typeTreeSupplier = null;
+        }
         return typeTree;
     }
 
     public void typeTree(Node<Type> typeTree) {
         this.typeTree = typeTree;
+        this.typeTreeSupplier = null;
+    }
+
+    public void typeTree(Supplier<Node<Type>> typeTreeSupplier) {
+        this.typeTree = null;
+        this.typeTreeSupplier = typeTreeSupplier;
     }
 }
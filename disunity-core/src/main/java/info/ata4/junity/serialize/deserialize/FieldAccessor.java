@@ -0,0 +1,187 @@
+/*
+ ** 2026 October 18
+ **
+ ** The author disclaims copyright to this source code. In place of
+ ** a legal notice, here is a blessing:
+ **    May you do good and not evil.
+ **    May you find forgiveness for yourself and forgive others.
+ **    May you share freely, never taking more than you give.
+ */
+package info.ata4.junity.serialize.deserialize;
+
+import static info.ata4.junity.serialize.deserialize.FieldReader.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Accessor for a field at a constant offset in the object data. The values
+ * are read with absolute indices relative to the start of the buffer, so the
+ * position and byte order of the buffer are never changed and the same
+ * buffer can be used from multiple threads.
+ *
+ * Values are mapped to the same Java types as in {@link StructValue}.
+ *
+ * @author Nico Bergemann <barracuda415 at yahoo.de>
+ */
+public class FieldAccessor {
+
+    private final String path;
+    private final String typeName;
+    private final int offset;
+    private final int size;
+    private final int kind;
+    private final ByteOrder order;
+
+    FieldAccessor(String path, String typeName, int offset, int size, int kind,
+            ByteOrder order) {
+        this.path = path;
+        this.typeName = typeName;
+        this.offset = offset;
+        this.size = size;
+        this.kind = kind;
+        this.order = order;
+    }
+
+    /**
+     * Returns the field names from the root to this field, separated by dots.
+     */
+    public String path() {
+        return path;
+    }
+
+    public String typeName() {
+        return typeName;
+    }
+
+    /**
+     * Returns the offset of the field in the object data.
+     */
+    public int offset() {
+        return offset;
+    }
+
+    /**
+     * Returns the size of the field value in bytes, without alignment padding.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if the field is a primitive, false if it's a struct.
+     */
+    public boolean isPrimitive() {
+        return kind >= 0;
+    }
+
+    /**
+     * Returns the boxed value of a primitive field.
+     *
+     * @throws IllegalStateException if the field isn't a primitive
+     * @throws IndexOutOfBoundsException if the buffer is too small
+     */
+    public Object get(ByteBuffer bb) {
+        switch (checkKind()) {
+            case BOOL:
+                return bb.get(offset) != 0;
+            case INT8:
+                return bb.get(offset);
+            case UINT8:
+                return bb.get(offset) & 0xff;
+            case INT16:
+                return readShort(bb);
+            case UINT16:
+                return readShort(bb) & 0xffff;
+            case INT32:
+                return readInt(bb);
+            case UINT32:
+                return readInt(bb) & 0xffffffffL;
+            case INT64:
+            case UINT64:
+                return readLong(bb);
+            case FLOAT:
+                return Float.intBitsToFloat(readInt(bb));
+            case DOUBLE:
+                return Double.longBitsToDouble(readLong(bb));
+            default:
+                throw new IllegalStateException();
+        }
+    }
+
+    public boolean getBoolean(ByteBuffer bb) {
+        return getLong(bb) != 0;
+    }
+
+    public int getInt(ByteBuffer bb) {
+        return (int) getLong(bb);
+    }
+
+    /**
+     * Returns the value of an integer field. Unsigned values up to 32 bits
+     * are zero-extended, floating point values are truncated.
+     */
+    public long getLong(ByteBuffer bb) {
+        switch (checkKind()) {
+            case BOOL:
+            case INT8:
+                return bb.get(offset);
+            case UINT8:
+                return bb.get(offset) & 0xff;
+            case INT16:
+                return readShort(bb);
+            case UINT16:
+                return readShort(bb) & 0xffff;
+            case INT32:
+                return readInt(bb);
+            case UINT32:
+                return readInt(bb) & 0xffffffffL;
+            case INT64:
+            case UINT64:
+                return readLong(bb);
+            default:
+                return (long) getDouble(bb);
+        }
+    }
+
+    public float getFloat(ByteBuffer bb) {
+        return (float) getDouble(bb);
+    }
+
+    public double getDouble(ByteBuffer bb) {
+        switch (checkKind()) {
+            case FLOAT:
+                return Float.intBitsToFloat(readInt(bb));
+            case DOUBLE:
+                return Double.longBitsToDouble(readLong(bb));
+            default:
+                return getLong(bb);
+        }
+    }
+
+    private int checkKind() {
+        if (kind < 0) {
+            throw new IllegalStateException(path + " is not a primitive field");
+        }
+        return kind;
+    }
+
+    private short readShort(ByteBuffer bb) {
+        short value = bb.getShort(offset);
+        return bb.order() == order ? value : Short.reverseBytes(value);
+    }
+
+    private int readInt(ByteBuffer bb) {
+        int value = bb.getInt(offset);
+        return bb.order() == order ? value : Integer.reverseBytes(value);
+    }
+
+    private long readLong(ByteBuffer bb) {
+        long value = bb.getLong(offset);
+        return bb.order() == order ? value : Long.reverseBytes(value);
+    }
+
+    @Override
+    public String toString() {
+        return typeName + " " + path + " @ " + offset;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ ** 2026 October 18
+ **
+ ** The author disclaims copyright to this source code. In place of
+ ** a legal notice, here is a blessing:
+ **    May you do good and not evil.
+ **    May you find forgiveness for yourself and forgive others.
+ **    May you share freely, never taking more than you give.
+ */
+package info.ata4.junity.serialize.deserialize;
+
+import info.ata4.junity.serialize.typetree.Type;
+import info.ata4.util.collection.Node;
+import java.nio.ByteOrder;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Constant field offsets for the fixed-size prefix of a type tree. The prefix
+ * ends at the first field whose size depends on the data, such as an array or
+ * a string. All fields before it, including the fields of structs inside the
+ * prefix, can be read directly from the object data without decoding the
+ * fields in front of them.
+ *
+ * @author Nico Bergemann <barracuda415 at yahoo.de>
+ */
+public class FieldLayout {
+
+    private final Map<String, FieldAccessor> accessors = new LinkedHashMap<>();
+    private final ByteOrder order;
+    private int fixedSize;
+
+    private FieldLayout(ByteOrder order) {
+        this.order = order;
+    }
+
+    /**
+     * Computes the field offsets of a type tree.
+     *
+     * @param typeTree root node of the type tree
+     * @param order byte order of the object data
+     * @return field layout
+     */
+    public static FieldLayout compile(Node<? extends Type> typeTree, ByteOrder order) {
+        FieldLayout layout = new FieldLayout(order);
+        int end = layout.addFields(typeTree, "", 0);
+        if (end >= 0) {
+            layout.fixedSize = end;
+        }
+        return layout;
+    }
+
+    /**
+     * Adds the accessors for the child fields of a node.
+     *
+     * @return end offset of the fields or -1 if a variable-size field was
+     *         found
+     */
+    private int addFields(Node<? extends Type> node, String prefix, int offset) {
+        for (Node<? extends Type> child : node) {
+            int end = addField(child, prefix + child.data().fieldName(), offset);
+            if (end < 0) {
+                return end;
+            }
+            offset = end;
+        }
+        return offset;
+    }
+
+    private int addField(Node<? extends Type> node, String path, int offset) {
+        Type type = node.data();
+        if (type.isArray()) {
+            return variable(offset);
+        }
+
+        int end;
+        int kind = -1;
+        if (node.isEmpty()) {
+            if (type.size() != 0) {
+                kind = FieldReader.primitiveKind(type);
+                if (kind < 0 || FieldReader.KIND_SIZES[kind] != type.size()) {
+                    return variable(offset);
+                }
+            }
+            end = offset + type.size();
+        } else {
+            end = addFields(node, path + ".", offset);
+            if (end < 0) {
+                return end;
+            }
+        }
+
+        accessors.putIfAbsent(path, new FieldAccessor(path, type.typeName(),
+                offset, end - offset, kind, order));
+
+        if (FieldReader.isAligned(type)) {
+            end = (end + 3) & ~3;
+        }
+
+        return end;
+    }
+
+    private int variable(int offset) {
+        fixedSize = offset;
+        return -1;
+    }
+
+    /**
+     * Returns the accessor for a field in the fixed-size prefix.
+     *
+     * @param path field names from the root, separated by dots, for example
+     *        "m_GameObject.m_PathID"
+     * @return field accessor or null if there's no such field in the
+     *         fixed-size prefix
+     */
+    public FieldAccessor accessor(String path) {
+        return accessors.get(path);
+    }
+
+    /**
+     * Returns the accessors of all fields in the fixed-size prefix in the
+     * order of the type tree.
+     */
+    public Collection<FieldAccessor> accessors() {
+        return Collections.unmodifiableCollection(accessors.values());
+    }
+
+    /**
+     * Returns the size of the fixed-size prefix in bytes, including alignment
+     * padding.
+     */
+    public int fixedSize() {
+        return fixedSize;
+    }
+
+    public ByteOrder order() {
+        return order;
+    }
+}
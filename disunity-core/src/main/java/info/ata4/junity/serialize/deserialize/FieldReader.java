@@ -0,0 +1,448 @@
+/*
+ ** 2026 October 18
+ **
+ ** The author disclaims copyright to this source code. In place of
+ ** a legal notice, here is a blessing:
+ **    May you do good and not evil.
+ **    May you find forgiveness for yourself and forgive others.
+ **    May you share freely, never taking more than you give.
+ */
+package info.ata4.junity.serialize.deserialize;
+
+import info.ata4.junity.serialize.SerializedFileException;
+import info.ata4.junity.serialize.typetree.Type;
+import info.ata4.util.collection.Node;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled reader for one field of a type tree. The type names, flags and
+ * sizes are interpreted once while compiling, reading a value only dispatches
+ * on the precomputed field kinds.
+ *
+ * @author Nico Bergemann <barracuda415 at yahoo.de>
+ */
+abstract class FieldReader {
+
+    // primitive kinds
+    static final int BOOL = 0;
+    static final int INT8 = 1;
+    static final int UINT8 = 2;
+    static final int INT16 = 3;
+    static final int UINT16 = 4;
+    static final int INT32 = 5;
+    static final int UINT32 = 6;
+    static final int INT64 = 7;
+    static final int UINT64 = 8;
+    static final int FLOAT = 9;
+    static final int DOUBLE = 10;
+
+    static final int[] KIND_SIZES = {1, 1, 1, 2, 2, 4, 4, 8, 8, 4, 8};
+
+    final String name;
+    final String typeName;
+
+    // align to 4 bytes after reading the value
+    final boolean align;
+
+    FieldReader(Type type, boolean align) {
+        this.name = type.fieldName();
+        this.typeName = type.typeName();
+        this.align = align;
+    }
+
+    /**
+     * Reads the value at the current position of the buffer and skips the
+     * alignment padding after it.
+     */
+    final Object readField(ByteBuffer bb) {
+        Object value = read(bb);
+        if (align) {
+            align(bb);
+        }
+        return value;
+    }
+
+    abstract Object read(ByteBuffer bb);
+
+    /**
+     * Returns the minimum size of the value in bytes, without alignment
+     * padding.
+     */
+    abstract int minSize();
+
+    static void align(ByteBuffer bb) {
+        bb.position((bb.position() + 3) & ~3);
+    }
+
+    /**
+     * Compiles the root node of a type tree, which is always read as a
+     * struct.
+     */
+    static StructReader compileRoot(Node<? extends Type> node) throws SerializedFileException {
+        return compileStruct(node, isAligned(node.data()));
+    }
+
+    static FieldReader compile(Node<? extends Type> node) throws SerializedFileException {
+        Type type = node.data();
+        boolean align = isAligned(type);
+
+        if (type.isArray()) {
+            return compileArray(node, type, align);
+        }
+
+        if (node.isEmpty()) {
+            int kind = primitiveKind(type);
+            if (kind < 0) {
+                if (type.size() == 0) {
+                    return compileStruct(node, align);
+                }
+                throw new SerializedFileException("Unsupported primitive type "
+                        + type.typeName() + " with size " + type.size());
+            }
+            return new PrimitiveReader(type, align, kind);
+        }
+
+        // containers like vector, map and string only wrap an array, so
+        // their value is the value of the array
+        if (node.size() == 1) {
+            Node<? extends Type> child = node.iterator().next();
+            Type childType = child.data();
+            if (childType.isArray()) {
+                boolean containerAlign = align || isAligned(childType);
+                if (type.typeName().equals("string")) {
+                    return new StringReader(type, containerAlign);
+                }
+                return compileArray(child, type, containerAlign);
+            }
+        }
+
+        return compileStruct(node, align);
+    }
+
+    private static StructReader compileStruct(Node<? extends Type> node, boolean align)
+            throws SerializedFileException {
+        FieldReader[] fields = new FieldReader[node.size()];
+        int i = 0;
+        for (Node<? extends Type> child : node) {
+            fields[i++] = compile(child);
+        }
+        return new StructReader(node.data(), align, fields);
+    }
+
+    private static FieldReader compileArray(Node<? extends Type> node, Type type,
+            boolean align) throws SerializedFileException {
+        // arrays contain the size field followed by the element type
+        if (node.size() != 2) {
+            throw new SerializedFileException("Array " + node.data().fieldName()
+                    + " has " + node.size() + " child types instead of 2");
+        }
+
+        Iterator<? extends Node<? extends Type>> it = node.iterator();
+        it.next();
+        Node<? extends Type> element = it.next();
+
+        // use primitive arrays for unaligned primitive elements
+        Type elementType = element.data();
+        if (element.isEmpty() && !isAligned(elementType)) {
+            int kind = primitiveKind(elementType);
+            if (kind >= 0) {
+                return new PrimitiveArrayReader(type, align, kind);
+            }
+        }
+
+        return new ArrayReader(type, align, compile(element));
+    }
+
+    static boolean isAligned(Type type) {
+        return (type.metaFlag() & Type.FLAG_FORCE_ALIGN) != 0;
+    }
+
+    static int primitiveKind(Type type) {
+        switch (type.typeName()) {
+            case "bool":
+                return BOOL;
+            case "SInt8":
+            case "char":
+                return INT8;
+            case "UInt8":
+                return UINT8;
+            case "SInt16":
+            case "short":
+                return INT16;
+            case "UInt16":
+            case "unsigned short":
+                return UINT16;
+            case "SInt32":
+            case "int":
+                return INT32;
+            case "UInt32":
+            case "unsigned int":
+            case "Type*":
+                return UINT32;
+            case "SInt64":
+            case "long long":
+                return INT64;
+            case "UInt64":
+            case "unsigned long long":
+            case "FileSize":
+                return UINT64;
+            case "float":
+                return FLOAT;
+            case "double":
+                return DOUBLE;
+        }
+
+        // read unknown primitives as signed integers of the same size
+        switch (type.size()) {
+            case 1:
+                return INT8;
+            case 2:
+                return INT16;
+            case 4:
+                return INT32;
+            case 8:
+                return INT64;
+            default:
+                return -1;
+        }
+    }
+
+    static class PrimitiveReader extends FieldReader {
+
+        final int kind;
+
+        PrimitiveReader(Type type, boolean align, int kind) {
+            super(type, align);
+            this.kind = kind;
+        }
+
+        @Override
+        Object read(ByteBuffer bb) {
+            switch (kind) {
+                case BOOL:
+                    return bb.get() != 0;
+                case INT8:
+                    return bb.get();
+                case UINT8:
+                    return bb.get() & 0xff;
+                case INT16:
+                    return bb.getShort();
+                case UINT16:
+                    return bb.getShort() & 0xffff;
+                case INT32:
+                    return bb.getInt();
+                case UINT32:
+                    return bb.getInt() & 0xffffffffL;
+                case INT64:
+                case UINT64:
+                    return bb.getLong();
+                case FLOAT:
+                    return bb.getFloat();
+                case DOUBLE:
+                    return bb.getDouble();
+                default:
+                    throw new IllegalStateException();
+            }
+        }
+
+        @Override
+        int minSize() {
+            return KIND_SIZES[kind];
+        }
+    }
+
+    static class PrimitiveArrayReader extends FieldReader {
+
+        final int kind;
+
+        PrimitiveArrayReader(Type type, boolean align, int kind) {
+            super(type, align);
+            this.kind = kind;
+        }
+
+        @Override
+        Object read(ByteBuffer bb) {
+            int length = readLength(bb, KIND_SIZES[kind]);
+
+            Object value;
+            switch (kind) {
+                case BOOL: {
+                    boolean[] array = new boolean[length];
+                    for (int i = 0; i < length; i++) {
+                        array[i] = bb.get() != 0;
+                    }
+                    value = array;
+                    break;
+                }
+                case INT8:
+                case UINT8: {
+                    byte[] array = new byte[length];
+                    bb.get(array);
+                    value = array;
+                    break;
+                }
+                case INT16:
+                case UINT16: {
+                    short[] array = new short[length];
+                    bb.asShortBuffer().get(array);
+                    value = array;
+                    break;
+                }
+                case INT32:
+                case UINT32: {
+                    int[] array = new int[length];
+                    bb.asIntBuffer().get(array);
+                    value = array;
+                    break;
+                }
+                case INT64:
+                case UINT64: {
+                    long[] array = new long[length];
+                    bb.asLongBuffer().get(array);
+                    value = array;
+                    break;
+                }
+                case FLOAT: {
+                    float[] array = new float[length];
+                    bb.asFloatBuffer().get(array);
+                    value = array;
+                    break;
+                }
+                case DOUBLE: {
+                    double[] array = new double[length];
+                    bb.asDoubleBuffer().get(array);
+                    value = array;
+                    break;
+                }
+                default:
+                    throw new IllegalStateException();
+            }
+
+            // the views don't advance the position of the buffer itself
+            if (kind != BOOL && kind != INT8 && kind != UINT8) {
+                bb.position(bb.position() + length * KIND_SIZES[kind]);
+            }
+
+            return value;
+        }
+
+        @Override
+        int minSize() {
+            return 4;
+        }
+    }
+
+    static class StringReader extends FieldReader {
+
+        StringReader(Type type, boolean align) {
+            super(type, align);
+        }
+
+        @Override
+        Object read(ByteBuffer bb) {
+            int length = readLength(bb, 1);
+            String value;
+            if (bb.hasArray()) {
+                value = new String(bb.array(), bb.arrayOffset() + bb.position(),
+                        length, StandardCharsets.UTF_8);
+                bb.position(bb.position() + length);
+            } else {
+                byte[] raw = new byte[length];
+                bb.get(raw);
+                value = new String(raw, StandardCharsets.UTF_8);
+            }
+            return value;
+        }
+
+        @Override
+        int minSize() {
+            return 4;
+        }
+    }
+
+    static class ArrayReader extends FieldReader {
+
+        final FieldReader element;
+
+        ArrayReader(Type type, boolean align, FieldReader element) {
+            super(type, align);
+            this.element = element;
+        }
+
+        @Override
+        Object read(ByteBuffer bb) {
+            int length = readLength(bb, element.minSize());
+            Object[] values = new Object[length];
+            for (int i = 0; i < length; i++) {
+                values[i] = element.readField(bb);
+            }
+            return Collections.unmodifiableList(Arrays.asList(values));
+        }
+
+        @Override
+        int minSize() {
+            return 4;
+        }
+    }
+
+    static class StructReader extends FieldReader {
+
+        final FieldReader[] fields;
+        final List<String> fieldNames;
+        final Map<String, Integer> fieldIndices;
+        final int minSize;
+
+        StructReader(Type type, boolean align, FieldReader[] fields) {
+            super(type, align);
+            this.fields = fields;
+
+            String[] names = new String[fields.length];
+            fieldIndices = new HashMap<>();
+            for (int i = 0; i < fields.length; i++) {
+                names[i] = fields[i].name;
+                fieldIndices.putIfAbsent(names[i], i);
+            }
+            fieldNames = Collections.unmodifiableList(Arrays.asList(names));
+
+            int size = 0;
+            for (FieldReader field : fields) {
+                size += field.minSize();
+            }
+            minSize = size;
+        }
+
+        @Override
+        StructValue read(ByteBuffer bb) {
+            Object[] values = new Object[fields.length];
+            for (int i = 0; i < fields.length; i++) {
+                values[i] = fields[i].readField(bb);
+            }
+            return new StructValue(this, values);
+        }
+
+        @Override
+        int minSize() {
+            return minSize;
+        }
+    }
+
+    /**
+     * Reads an array length and checks it against the remaining data. Empty
+     * elements are counted as one byte, since arrays of them don't exist in
+     * practice, but could be used to allocate huge arrays with corrupt data.
+     */
+    static int readLength(ByteBuffer bb, int minElementSize) {
+        int length = bb.getInt();
+        if (length < 0 || (long) length * Math.max(minElementSize, 1) > bb.remaining()) {
+            throw new IllegalArgumentException("Invalid array length " + length);
+        }
+        return length;
+    }
+}
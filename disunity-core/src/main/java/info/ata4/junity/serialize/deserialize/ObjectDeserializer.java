@@ -0,0 +1,143 @@
+/*
+ ** 2026 October 18
+ **
+ ** The author disclaims copyright to this source code. In place of
+ ** a legal notice, here is a blessing:
+ **    May you do good and not evil.
+ **    May you find forgiveness for yourself and forgive others.
+ **    May you share freely, never taking more than you give.
+ */
+package info.ata4.junity.serialize.deserialize;
+
+import info.ata4.junity.serialize.SerializedFile;
+import info.ata4.junity.serialize.SerializedFileException;
+import info.ata4.junity.serialize.SerializedObjectData;
+import info.ata4.junity.serialize.deserialize.FieldReader.StructReader;
+import info.ata4.junity.serialize.typetree.Type;
+import info.ata4.util.collection.Node;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Deserializer for object data based on the embedded type trees of serialized
+ * files.
+ *
+ * Each type tree is compiled once into a plan of field readers, which is
+ * reused for all objects of that type, so the type names and flags aren't
+ * interpreted again for every object. Plans are cached by type tree instance,
+ * which is the same for all objects of a TypeRoot. Instances may be shared
+ * between threads.
+ *
+ * If only a few fields at the start of the objects are needed, the
+ * {@link FieldLayout} of a type tree provides accessors that read them
+ * directly at constant offsets instead.
+ *
+ * @author Nico Bergemann <barracuda415 at yahoo.de>
+ */
+public class ObjectDeserializer {
+
+    private final ByteOrder order;
+    private final Map<Node<? extends Type>, StructReader> plans =
+            Collections.synchronizedMap(new IdentityHashMap<>());
+    private final Map<Node<? extends Type>, FieldLayout> layouts =
+            Collections.synchronizedMap(new IdentityHashMap<>());
+
+    /**
+     * Creates a deserializer for object data with the given byte order.
+     */
+    public ObjectDeserializer(ByteOrder order) {
+        this.order = order;
+    }
+
+    /**
+     * Creates a deserializer for the objects of a serialized file.
+     */
+    public ObjectDeserializer(SerializedFile serialized) {
+        // same byte order as used by the reader
+        this(serialized.header().version() > 5 ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+    }
+
+    public ByteOrder order() {
+        return order;
+    }
+
+    /**
+     * Deserializes an object with its type tree.
+     *
+     * @param object object with data buffer and type tree
+     * @return object value
+     * @throws SerializedFileException if the object has no type tree or if
+     *         its data doesn't match the type tree
+     */
+    public StructValue deserialize(SerializedObjectData object) throws SerializedFileException {
+        Node<Type> typeTree = object.typeTree();
+        if (typeTree == null) {
+            throw new SerializedFileException("No type tree for object " + object.id());
+        }
+
+        ByteBuffer bb = object.buffer().duplicate();
+        bb.rewind();
+
+        return deserialize(bb, typeTree);
+    }
+
+    /**
+     * Deserializes a value from a buffer that starts with the object data.
+     * Reading begins at the current position, which is advanced past the
+     * value. Alignment is relative to the start of the buffer.
+     *
+     * @param bb object data buffer, its byte order will be changed
+     * @param typeTree root node of the type tree
+     * @return object value
+     * @throws SerializedFileException if the data doesn't match the type tree
+     */
+    public StructValue deserialize(ByteBuffer bb, Node<? extends Type> typeTree)
+            throws SerializedFileException {
+        StructReader plan = plan(typeTree);
+        bb.order(order);
+
+        try {
+            return (StructValue) plan.readField(bb);
+        } catch (BufferUnderflowException | IllegalArgumentException ex) {
+            throw new SerializedFileException("Object data doesn't match type "
+                    + typeTree.data().typeName(), ex);
+        }
+    }
+
+    /**
+     * Returns the offsets of the fields in the fixed-size prefix of a type
+     * tree.
+     *
+     * @param typeTree root node of the type tree
+     * @return field layout
+     */
+    public FieldLayout layout(Node<? extends Type> typeTree) {
+        return layouts.computeIfAbsent(typeTree, key -> FieldLayout.compile(key, order));
+    }
+
+    /**
+     * Returns the accessor for a field in the fixed-size prefix of a type tree.
+     *
+     * @param typeTree root node of the type tree
+     * @param path field names from the root, separated by dots
+     * @return field accessor or null if there's no such field in the
+     *         fixed-size prefix
+     */
+    public FieldAccessor accessor(Node<? extends Type> typeTree, String path) {
+        return layout(typeTree).accessor(path);
+    }
+
+    private StructReader plan(Node<? extends Type> typeTree) throws SerializedFileException {
+        StructReader plan = plans.get(typeTree);
+        if (plan == null) {
+            // compiling the same plan twice in different threads is harmless
+            plan = FieldReader.compileRoot(typeTree);
+            plans.put(typeTree, plan);
+        }
+        return plan;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ ** 2026 October 18
+ **
+ ** The author disclaims copyright to this source code. In place of
+ ** a legal notice, here is a blessing:
+ **    May you do good and not evil.
+ **    May you find forgiveness for yourself and forgive others.
+ **    May you share freely, never taking more than you give.
+ */
+package info.ata4.junity.serialize.deserialize;
+
+import info.ata4.junity.serialize.deserialize.FieldReader.StructReader;
+import java.lang.reflect.Array;
+import java.util.List;
+
+/**
+ * Deserialized value of a struct field or a whole object. Field values are
+ * mapped to Java types as follows:
+ *
+ * <ul>
+ * <li>bool: Boolean</li>
+ * <li>SInt8, char: Byte</li>
+ * <li>UInt8, SInt16, UInt16: Integer, except SInt16, which is a Short</li>
+ * <li>SInt32: Integer, UInt32: Long</li>
+ * <li>SInt64, UInt64: Long</li>
+ * <li>float: Float, double: Double</li>
+ * <li>string: String</li>
+ * <li>arrays and containers like vector and map with primitive elements:
+ * arrays of the primitive type, unsigned types use the signed type of the same
+ * size</li>
+ * <li>other arrays and containers: unmodifiable lists</li>
+ * <li>other structs: StructValue</li>
+ * </ul>
+ *
+ * @author Nico Bergemann <barracuda415 at yahoo.de>
+ */
+public class StructValue {
+
+    private final StructReader reader;
+    private final Object[] values;
+
+    StructValue(StructReader reader, Object[] values) {
+        this.reader = reader;
+        this.values = values;
+    }
+
+    public String typeName() {
+        return reader.typeName;
+    }
+
+    public List<String> fieldNames() {
+        return reader.fieldNames;
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public Object get(int index) {
+        return values[index];
+    }
+
+    /**
+     * Returns the value of a field or null if there is no field with that
+     * name. If there are multiple fields with the same name, the value of the
+     * first one is returned.
+     */
+    public Object get(String name) {
+        Integer index = reader.fieldIndices.get(name);
+        return index != null ? values[index] : null;
+    }
+
+    public boolean getBoolean(String name) {
+        return (Boolean) get(name);
+    }
+
+    public int getInt(String name) {
+        return ((Number) get(name)).intValue();
+    }
+
+    public long getLong(String name) {
+        return ((Number) get(name)).longValue();
+    }
+
+    public float getFloat(String name) {
+        return ((Number) get(name)).floatValue();
+    }
+
+    public double getDouble(String name) {
+        return ((Number) get(name)).doubleValue();
+    }
+
+    public String getString(String name) {
+        return (String) get(name);
+    }
+
+    public StructValue getStruct(String name) {
+        return (StructValue) get(name);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(typeName()).append(" {");
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(' ').append(reader.fieldNames.get(i)).append(" = ");
+
+            Object value = values[i];
+            if (value != null && value.getClass().isArray()) {
+                sb.append(value.getClass().getComponentType()).append('[')
+                        .append(Array.getLength(value)).append(']');
+            } else {
+                sb.append(value);
+            }
+        }
+        return sb.append(" }").toString();
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ ** 2026 October 18
+ **
+ ** The author disclaims copyright to this source code. In place of
+ ** a legal notice, here is a blessing:
+ **    May you do good and not evil.
+ **    May you find forgiveness for yourself and forgive others.
+ **    May you share freely, never taking more than you give.
+ */
+package info.ata4.junity.serialize.typetree;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable table of the strings that are shared by all Unity 5 type trees of
+ * a major version. The offsets of these strings have the highest bit set and
+ * are counted like the offsets in a local string table.
+ *
+ * Offsets are resolved with a direct lookup by string position, so looking up
+ * a string doesn't need any hashing or boxing. Instances are safe to share
+ * between threads.
+ *
+ * @author Nico Bergemann <barracuda415 at yahoo.de>
+ */
+public class CommonStringTable {
+
+    // offset of the first string
+    private static final int BASE_OFFSET = 1 << 31;
+
+    // strings by position relative to the base offset, null for positions
+    // that don't start a string
+    private final String[] strings;
+    private final Map<String, Integer> offsets;
+
+    /**
+     * Creates a table from strings in the order in which they're stored. If a
+     * string occurs more than once, {@link #offset(String)} returns the offset
+     * of its first occurrence.
+     *
+     * @param values common strings
+     */
+    public CommonStringTable(List<String> values) {
+        int length = 0;
+        for (String value : values) {
+            length += value.length() + 1;
+        }
+
+        strings = new String[length];
+        Map<String, Integer> offsetMap = new HashMap<>();
+        int position = 0;
+        for (String value : values) {
+            strings[position] = value;
+            offsetMap.putIfAbsent(value, BASE_OFFSET + position);
+            position += value.length() + 1;
+        }
+        offsets = Collections.unmodifiableMap(offsetMap);
+    }
+
+    /**
+     * Returns true if the offset refers to the common strings rather than to
+     * the local string table of a type tree.
+     */
+    public static boolean isCommonOffset(int offset) {
+        return offset < 0;
+    }
+
+    /**
+     * Returns the string at the given offset.
+     *
+     * @param offset common string offset
+     * @return string or null if no string starts at that offset
+     */
+    public String string(int offset) {
+        int position = offset - BASE_OFFSET;
+        if (position < 0 || position >= strings.length) {
+            return null;
+        }
+        return strings[position];
+    }
+
+    /**
+     * Returns the offset of a string.
+     *
+     * @param string string to look up
+     * @return common string offset or null if the string isn't a common string
+     */
+    public Integer offset(String string) {
+        return offsets.get(string);
+    }
+
+    /**
+     * Returns the number of distinct strings.
+     */
+    public int size() {
+        return offsets.size();
+    }
+
+    /**
+     * Returns a new map of all offsets and strings.
+     */
+    public Map<Integer, String> toMap() {
+        Map<Integer, String> map = new LinkedHashMap<>();
+        for (int i = 0; i < strings.length; i++) {
+            if (strings[i] != null) {
+                map.put(BASE_OFFSET + i, strings[i]);
+            }
+        }
+        return map;
+    }
+}
@@ -12,15 +12,14 @@ package info.ata4.junity.serialize.typetree;
 import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
 import info.ata4.io.DataReader;
+import info.ata4.junity.serialize.SerializedFileException;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Objects;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 
 /**
@@ -29,32 +28,77 @@ import java.util.stream.Collectors;
  */
 public class StringTable {
 
-    private static Map<Integer, Map<Integer, String>> commonStringMap = new HashMap<>();
+    // loaded common string tables per major version
+    private static final ConcurrentMap<Integer, CommonStringTable> commonTables =
+            new ConcurrentHashMap<>();
 
     private StringTable() {
     }
 
     private static BufferedReader resourceReader(String path) {
-        return new BufferedReader(new InputStreamReader(
-            StringTable.class.getResourceAsStream(path), StandardCharsets.US_ASCII));
+        InputStream is = StringTable.class.getResourceAsStream(path);
+        if (is == null) {
+            return null;
+        }
+        return new BufferedReader(new InputStreamReader(is, StandardCharsets.US_ASCII));
     }
 
-    public static BiMap<Integer, String> commonStrings(int version) throws IOException {
-        // load default strings from resource files if required
-        if (!commonStringMap.containsKey(version)) {
-            AtomicInteger index = new AtomicInteger(1 << 31);
+    /**
+     * Returns the common strings for a Unity major version. The table is
+     * loaded once and shared by all callers.
+     *
+     * @param version Unity major version
+     * @return common string table
+     * @throws IOException if there are no common strings for the version
+     */
+    public static CommonStringTable commonStringTable(int version) throws IOException {
+        CommonStringTable table = commonTables.get(version);
+        if (table == null) {
+            // tables are immutable, so loading one twice in parallel is
+            // harmless and the first one wins
             String resourcePath = "/resources/strings/" + version + ".x.txt";
             try (BufferedReader br = resourceReader(resourcePath)) {
-                commonStringMap.put(version, br.lines().collect(Collectors.toMap(
-                    value -> index.getAndAdd(value.length() + 1),
-                    value -> value
-                )));
-            } catch (NullPointerException ex) {
-                throw new RuntimeException("No common strings file found for version " + version);
+                if (br == null) {
+                    throw new SerializedFileException("No common strings file found for version " + version);
+                }
+                table = new CommonStringTable(br.lines().collect(Collectors.toList()));
+            }
+
+            CommonStringTable tablePrev = commonTables.putIfAbsent(version, table);
+            if (tablePrev != null) {
+                table = tablePrev;
             }
         }
+        return table;
+    }
+
+    /**
+     * Returns a new map of the common strings for a Unity major version. Use
+     * {@link #commonStringTable(int)} for lookups, which doesn't copy the
+     * strings.
+     */
+    public static BiMap<Integer, String> commonStrings(int version) throws IOException {
+        return HashBiMap.create(commonStringTable(version).toMap());
+    }
+
+    /**
+     * Returns the string that starts at an offset of a raw local string table.
+     *
+     * @param data string table data
+     * @param offset string offset
+     * @return string or null if no string starts at that offset
+     */
+    public static String localString(byte[] data, int offset) {
+        if (offset < 0 || offset >= data.length || (offset > 0 && data[offset - 1] != 0)) {
+            return null;
+        }
+
+        int end = offset;
+        while (end < data.length && data[end] != 0) {
+            end++;
+        }
 
-        return HashBiMap.create(commonStringMap.get(version));
+        return new String(data, offset, end - offset, StandardCharsets.UTF_8);
     }
 
     public static BiMap<Integer, String> read(DataReader in, int length) throws IOException {
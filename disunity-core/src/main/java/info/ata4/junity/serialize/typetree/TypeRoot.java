@@ -12,6 +12,7 @@ package info.ata4.junity.serialize.typetree;
 import info.ata4.junity.UnityHash128;
 import info.ata4.util.collection.Node;
 import java.util.Objects;
+import java.util.function.Function;
 
 /**
  *
@@ -24,6 +25,8 @@ public class TypeRoot<T extends Type> {
     private UnityHash128 scriptID;
     private UnityHash128 oldTypeHash;
     private Node<T> nodes;
+    private TypeTreeTable table;
+    private Function<TypeTreeTable, Node<T>> tableConverter;
 
     public int classID() {
         return classID;
@@ -49,11 +52,45 @@ public class TypeRoot<T extends Type> {
         this.oldTypeHash = oldTypeHash;
     }
 
-    public Node<T> nodes() {
+    /**
+     * Returns the type tree as nodes. If the tree has been read as a table,
+     * the nodes are created on the first call and the table is dropped, so
+     * only one of both is held in memory.
+     */
+    public synchronized Node<T> nodes() {
+        if (nodes == null && table != null) {
+            nodes = tableConverter.apply(table);
+            table = null;
+            tableConverter = null;
+        }
         return nodes;
     }
 
-    public void nodes(Node<T> nodes) {
+    public synchronized void nodes(Node<T> nodes) {
         this.nodes = nodes;
+        this.table = null;
+        this.tableConverter = null;
+    }
+
+    /**
+     * Returns the type tree as table or null if it's only available as nodes,
+     * which is also the case after {@link #nodes()} has been called.
+     */
+    public synchronized TypeTreeTable table() {
+        return table;
+    }
+
+    /**
+     * Sets the type tree as table. The nodes are created from it when they're
+     * requested.
+     *
+     * @param table type tree table
+     * @param tableConverter function that creates the nodes from the table
+     */
+    public synchronized void table(TypeTreeTable table,
+            Function<TypeTreeTable, Node<T>> tableConverter) {
+        this.table = table;
+        this.tableConverter = tableConverter;
+        this.nodes = null;
     }
 }
@@ -0,0 +1,134 @@
+/*
+ ** 2026 October 18
+ **
+ ** The author disclaims copyright to this source code. In place of
+ ** a legal notice, here is a blessing:
+ **    May you do good and not evil.
+ **    May you find forgiveness for yourself and forgive others.
+ **    May you share freely, never taking more than you give.
+ */
+package info.ata4.junity.serialize.typetree;
+
+import info.ata4.junity.UnityHash128;
+import info.ata4.util.collection.Node;
+import info.ata4.util.function.IOFunction;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Pool of type trees that can be shared between serialized files. All files of
+ * a game build usually contain the same type trees for the same classes, so
+ * each distinct tree only needs to be decoded and stored once.
+ *
+ * Trees are looked up by class ID, script ID and old type hash and are only
+ * shared if their serialized form is identical as well, so a wrong or missing
+ * hash can't produce a mismatching tree. Pooled trees are shared by all files
+ * that use them and must not be modified. The pool is safe to use from
+ * multiple threads.
+ *
+ * @author Nico Bergemann <barracuda415 at yahoo.de>
+ */
+public class TypeTreePool {
+
+    private static final TypeTreePool SHARED = new TypeTreePool();
+
+    private final ConcurrentMap<Key, Node<?>> trees = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the process-wide pool.
+     */
+    public static TypeTreePool shared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns the pooled tree for the serialized tree data or decodes and
+     * adds it if it's not in the pool yet.
+     *
+     * @param typeRoot type root with the class ID and hashes of the tree
+     * @param format format of the data, trees are only shared between equal
+     *        formats
+     * @param data serialized tree data
+     * @param decoder function that decodes the data if required
+     * @return pooled tree
+     * @throws IOException if the data couldn't be decoded
+     */
+    @SuppressWarnings("unchecked")
+    <T extends Type> Node<T> intern(TypeRoot<T> typeRoot, Object format, byte[] data,
+            IOFunction<byte[], Node<T>> decoder) throws IOException {
+        Key key = new Key(typeRoot, format, data);
+        Node<T> tree = (Node<T>) trees.get(key);
+        if (tree == null) {
+            // decoding the same tree twice at the same time is harmless, the
+            // first one wins
+            tree = decoder.apply(data);
+            Node<T> treePrev = (Node<T>) trees.putIfAbsent(key, tree);
+            if (treePrev != null) {
+                tree = treePrev;
+            }
+        }
+        return tree;
+    }
+
+    /**
+     * Returns the number of distinct trees in the pool.
+     */
+    public int size() {
+        return trees.size();
+    }
+
+    /**
+     * Removes all trees from the pool. Trees that are already in use stay
+     * valid.
+     */
+    public void clear() {
+        trees.clear();
+    }
+
+    private static class Key {
+
+        private final int classID;
+        private final byte[] scriptID;
+        private final byte[] oldTypeHash;
+        private final Object format;
+        private final byte[] data;
+
+        private Key(TypeRoot<?> typeRoot, Object format, byte[] data) {
+            this.classID = typeRoot.classID();
+            this.scriptID = hashCopy(typeRoot.scriptID());
+            this.oldTypeHash = hashCopy(typeRoot.oldTypeHash());
+            this.format = format;
+            this.data = data;
+        }
+
+        private static byte[] hashCopy(UnityHash128 hash) {
+            return hash != null ? hash.hash().clone() : null;
+        }
+
+        @Override
+        public int hashCode() {
+            // the data is only compared for trees with the same hashes
+            int hash = classID;
+            hash = 31 * hash + Arrays.hashCode(scriptID);
+            hash = 31 * hash + Arrays.hashCode(oldTypeHash);
+            hash = 31 * hash + data.length;
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return classID == other.classID
+                    && Arrays.equals(scriptID, other.scriptID)
+                    && Arrays.equals(oldTypeHash, other.oldTypeHash)
+                    && Objects.equals(format, other.format)
+                    && Arrays.equals(data, other.data);
+        }
+    }
+}
@@ -0,0 +1,298 @@
+/*
+ ** 2026 October 18
+ **
+ ** The author disclaims copyright to this source code. In place of
+ ** a legal notice, here is a blessing:
+ **    May you do good and not evil.
+ **    May you find forgiveness for yourself and forgive others.
+ **    May you share freely, never taking more than you give.
+ */
+package info.ata4.junity.serialize.typetree;
+
+import info.ata4.io.DataReader;
+import info.ata4.junity.serialize.SerializedFileException;
+import info.ata4.util.collection.Node;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Compact type tree that stores the fields in parallel arrays in the same
+ * order as the Unity 5 type tree format, where the tree structure is defined
+ * by the level of each field. Each string is stored once per tree and the
+ * fields refer to it by ID. A {@link Node} tree of types is only created on
+ * request.
+ *
+ * @author Nico Bergemann <barracuda415 at yahoo.de>
+ */
+public class TypeTreeTable {
+
+    // serialized size of a field
+    static final int FIELD_SIZE = 24;
+
+    private final short[] versions;
+    private final int[] levels;
+    private final boolean[] arrays;
+    private final int[] typeIDs;
+    private final int[] nameIDs;
+    private final int[] sizes;
+    private final int[] indices;
+    private final int[] metaFlags;
+    private final String[] strings;
+
+    private TypeTreeTable(short[] versions, int[] levels, boolean[] arrays,
+            int[] typeIDs, int[] nameIDs, int[] sizes, int[] indices,
+            int[] metaFlags, String[] strings) {
+        this.versions = versions;
+        this.levels = levels;
+        this.arrays = arrays;
+        this.typeIDs = typeIDs;
+        this.nameIDs = nameIDs;
+        this.sizes = sizes;
+        this.indices = indices;
+        this.metaFlags = metaFlags;
+        this.strings = strings;
+    }
+
+    /**
+     * Returns the size of the fields and the string table of a tree after its
+     * two size values. The sizes come from the file, so they're checked
+     * against the remaining input before anything is allocated.
+     *
+     * @param in input reader after the size values
+     * @param numFields number of fields
+     * @param stringTableLen size of the string table in bytes
+     * @return size of the tree data in bytes
+     * @throws SerializedFileException if the sizes are negative or exceed the
+     *         remaining input
+     * @throws IOException
+     */
+    static int dataSize(DataReader in, int numFields, int stringTableLen)
+            throws IOException {
+        long size = (long) numFields * FIELD_SIZE + stringTableLen;
+        if (numFields < 0 || stringTableLen < 0 || size > in.remaining()
+                || size > Integer.MAX_VALUE - 16) {
+            throw new SerializedFileException("Invalid type tree size: "
+                    + numFields + " fields, " + stringTableLen + " string bytes");
+        }
+        return (int) size;
+    }
+
+    /**
+     * Reads a tree in the Unity 5 format.
+     *
+     * @param in input reader at the start of the tree
+     * @param commonStrings common strings for the revision of the file
+     * @return type tree table
+     * @throws IOException
+     */
+    public static TypeTreeTable read(DataReader in, CommonStringTable commonStrings)
+            throws IOException {
+        int numFields = in.readInt();
+        int stringTableLen = in.readInt();
+        dataSize(in, numFields, stringTableLen);
+
+        // the string table follows after the fields, so keep the offsets
+        // until it has been read
+        short[] versions = new short[numFields];
+        int[] levels = new int[numFields];
+        boolean[] arrays = new boolean[numFields];
+        int[] typeOffsets = new int[numFields];
+        int[] nameOffsets = new int[numFields];
+        int[] sizes = new int[numFields];
+        int[] indices = new int[numFields];
+        int[] metaFlags = new int[numFields];
+
+        // read all fields at once and decode them from memory
+        byte[] fields = new byte[numFields * FIELD_SIZE];
+        in.readBytes(fields);
+        ByteBuffer bb = ByteBuffer.wrap(fields).order(in.order());
+
+        for (int i = 0; i < numFields; i++) {
+            versions[i] = bb.getShort();
+            levels[i] = bb.get() & 0xff;
+            arrays[i] = bb.get() != 0;
+            typeOffsets[i] = bb.getInt();
+            nameOffsets[i] = bb.getInt();
+            sizes[i] = bb.getInt();
+            indices[i] = bb.getInt();
+            metaFlags[i] = bb.getInt();
+        }
+
+        // the local strings are looked up in the raw table, common strings
+        // in the shared table, so neither of them needs to be copied
+        byte[] localStrings = new byte[stringTableLen];
+        in.readBytes(localStrings);
+
+        // assign an ID to each distinct string in the order of first use
+        StringIDs stringIDs = new StringIDs(localStrings, commonStrings);
+        int[] typeIDs = new int[numFields];
+        int[] nameIDs = new int[numFields];
+
+        for (int i = 0; i < numFields; i++) {
+            typeIDs[i] = stringIDs.get(typeOffsets[i], "type");
+            nameIDs[i] = stringIDs.get(nameOffsets[i], "name");
+        }
+
+        return new TypeTreeTable(versions, levels, arrays, typeIDs, nameIDs,
+                sizes, indices, metaFlags, stringIDs.strings());
+    }
+
+    /**
+     * Returns the number of fields.
+     */
+    public int numFields() {
+        return levels.length;
+    }
+
+    public int version(int field) {
+        return versions[field];
+    }
+
+    public int level(int field) {
+        return levels[field];
+    }
+
+    public boolean isArray(int field) {
+        return arrays[field];
+    }
+
+    public int typeID(int field) {
+        return typeIDs[field];
+    }
+
+    public String typeName(int field) {
+        return strings[typeIDs[field]];
+    }
+
+    public int nameID(int field) {
+        return nameIDs[field];
+    }
+
+    public String fieldName(int field) {
+        return strings[nameIDs[field]];
+    }
+
+    public int size(int field) {
+        return sizes[field];
+    }
+
+    public int index(int field) {
+        return indices[field];
+    }
+
+    public int metaFlag(int field) {
+        return metaFlags[field];
+    }
+
+    /**
+     * Returns the number of distinct strings in the tree.
+     */
+    public int numStrings() {
+        return strings.length;
+    }
+
+    /**
+     * Returns the string for a type or name ID.
+     */
+    public String string(int id) {
+        return strings[id];
+    }
+
+    /**
+     * Creates a node tree of types.
+     *
+     * @param factory supplier for empty types
+     * @return root node of the tree
+     */
+    public <T extends TypeV2> Node<T> toNode(Supplier<T> factory) {
+        Node<T> node = new Node<>();
+        Node<T> nodePrev = null;
+
+        for (int i = 0; i < levels.length; i++) {
+            T type = factory.get();
+            type.version(versions[i]);
+            type.treeLevel(levels[i]);
+            type.isArray(arrays[i]);
+            type.typeName(strings[typeIDs[i]]);
+            type.fieldName(strings[nameIDs[i]]);
+            type.size(sizes[i]);
+            type.index(indices[i]);
+            type.metaFlag(metaFlags[i]);
+
+            // create root node
+            if (nodePrev == null) {
+                node.data(type);
+                nodePrev = node;
+                continue;
+            }
+
+            Node<T> nodeCurr = new Node<>(type);
+
+            int levelDiff = nodePrev.data().treeLevel() - type.treeLevel();
+            if (levelDiff >= 0) {
+                // move down in tree hierarchy if required
+                for (int j = 0; j < levelDiff; j++) {
+                    nodePrev = nodePrev.parent();
+                }
+
+                nodePrev.parent().add(nodeCurr);
+            } else {
+                // can move only one level up at a time, so simply add the node
+                nodePrev.add(nodeCurr);
+            }
+
+            nodePrev = nodeCurr;
+        }
+
+        return node;
+    }
+
+    private static class StringIDs {
+
+        private final byte[] localStrings;
+        private final CommonStringTable commonStrings;
+        private final Map<Integer, Integer> offsetIDs = new HashMap<>();
+        private final Map<String, Integer> stringIDs = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+
+        private StringIDs(byte[] localStrings, CommonStringTable commonStrings) {
+            this.localStrings = localStrings;
+            this.commonStrings = commonStrings;
+        }
+
+        private int get(int offset, String kind) throws SerializedFileException {
+            Integer id = offsetIDs.get(offset);
+            if (id != null) {
+                return id;
+            }
+
+            String string = CommonStringTable.isCommonOffset(offset)
+                    ? commonStrings.string(offset)
+                    : StringTable.localString(localStrings, offset);
+            if (string == null) {
+                throw new SerializedFileException("No string table entry found for "
+                        + kind + " index " + offset);
+            }
+
+            // the same string may be both in the local and the common table
+            id = stringIDs.get(string);
+            if (id == null) {
+                id = strings.size();
+                strings.add(string);
+                stringIDs.put(string, id);
+            }
+
+            offsetIDs.put(offset, id);
+            return id;
+        }
+
+        private String[] strings() {
+            return strings.toArray(new String[strings.size()]);
+        }
+    }
+}
@@ -9,15 +9,16 @@
  */
 package info.ata4.junity.serialize.typetree;
 
-import com.google.common.collect.BiMap;
 import info.ata4.io.DataReader;
+import info.ata4.io.DataReaders;
 import info.ata4.io.DataWriter;
 import info.ata4.junity.UnityHash128;
 import info.ata4.junity.UnityVersion;
-import info.ata4.junity.serialize.SerializedFileException;
 import info.ata4.util.collection.Node;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -30,10 +31,28 @@ import java.util.function.Function;
  */
 public class TypeTreeV3<T extends TypeV2> extends TypeTreeV2<T> {
 
+    private TypeTreePool pool;
+
     public TypeTreeV3(Class<T> elementFactory) {
         super(elementFactory);
     }
 
+    /**
+     * Returns the pool for embedded type trees or null if each tree is
+     * decoded separately.
+     */
+    public TypeTreePool pool() {
+        return pool;
+    }
+
+    /**
+     * Sets a pool for embedded type trees, which shares identical trees with
+     * other files that use the same pool. Pooled trees must not be modified.
+     */
+    public void pool(TypeTreePool pool) {
+        this.pool = pool;
+    }
+
     @Override
     public void read(DataReader in) throws IOException {
         revision = new UnityVersion(in.readStringNull(255));
@@ -41,10 +60,15 @@ public class TypeTreeV3<T extends TypeV2> extends TypeTreeV2<T> {
         embedded = in.readBoolean();
         int numBaseClasses = in.readInt();
 
+        CommonStringTable commonStrings = null;
+        if (embedded) {
+            commonStrings = StringTable.commonStringTable(revision.major());
+        }
+
         for (int i = 0; i < numBaseClasses; i++) {
             int classID = in.readInt();
 
-            TypeRoot typeRoot = new TypeRoot();
+            TypeRoot<T> typeRoot = new TypeRoot<>();
             typeRoot.classID(classID);
 
             if (classID < 0) {
@@ -58,79 +82,45 @@ public class TypeTreeV3<T extends TypeV2> extends TypeTreeV2<T> {
             typeRoot.oldTypeHash(oldTypeHash);
 
             if (embedded) {
-                Node<T> node = new Node<>();
-                readNode(in, node);
-                typeRoot.nodes(node);
+                if (pool != null) {
+                    typeRoot.nodes(readNodePooled(in, typeRoot, commonStrings));
+                } else {
+                    // the nodes are only created when they're needed
+                    typeRoot.table(TypeTreeTable.read(in, commonStrings), this::toNode);
+                }
             }
 
             typeMap.put(classID, typeRoot);
         }
     }
 
-    private void readNode(DataReader in, Node<T> node) throws IOException {
+    private Node<T> readNodePooled(DataReader in, TypeRoot<T> typeRoot,
+            CommonStringTable commonStrings) throws IOException {
         int numFields = in.readInt();
         int stringTableLen = in.readInt();
+        int dataSize = TypeTreeTable.dataSize(in, numFields, stringTableLen);
+
+        // copy the raw tree including its sizes so it can be compared with
+        // the pooled trees and decoded if it's new
+        ByteBuffer bb = ByteBuffer.allocate(8 + dataSize);
+        bb.order(in.order());
+        bb.putInt(numFields);
+        bb.putInt(stringTableLen);
+        in.readBytes(bb.array(), 8, bb.capacity() - 8);
+
+        // the string offsets of the data refer to the common strings of
+        // the revision
+        Object format = Arrays.asList(elementFactory, revision.major());
+
+        return pool.intern(typeRoot, format, bb.array(), data -> {
+            DataReader inTree = DataReaders.forByteBuffer(ByteBuffer.wrap(data));
+            inTree.order(in.order());
+            return toNode(TypeTreeTable.read(inTree, commonStrings));
+        });
+    }
 
-        // read types
-        List<T> types = new ArrayList<>(numFields);
-        for (int j = 0; j < numFields; j++) {
-            T type = createElement();
-            in.readStruct(type);
-            types.add(type);
-        }
-
-        // read local string table and add common strings
-        BiMap<Integer, String> stringTable = StringTable.read(in, stringTableLen);
-        stringTable.putAll(StringTable.commonStrings(revision.major()));
-
-        // assign strings
-        for (T field : types) {
-            int nameOffset = field.nameOffset();
-            String name = stringTable.get(nameOffset);
-
-            if (name == null) {
-                throw new SerializedFileException("No string table entry found for name index " + nameOffset);
-            }
-
-            field.fieldName(name);
-
-            int typeOffset = field.typeOffset();
-            String type = stringTable.get(typeOffset);
-
-            if (name == null) {
-                throw new SerializedFileException("No string table entry found for type index " + typeOffset);
-            }
-
-            field.typeName(type);
-        }
-
-        // convert list to tree structure
-        Node<T> nodePrev = null;
-        for (T type : types) {
-            // create root node
-            if (nodePrev == null) {
-                node.data(type);
-                nodePrev = node;
-                continue;
-            }
-
-            Node<T> nodeCurr = new Node<>(type);
-
-            int levels = nodePrev.data().treeLevel() - type.treeLevel();
-            if (levels >= 0) {
-                // move down in tree hierarchy if required
-                for (int i = 0; i < levels; i++) {
-                    nodePrev = nodePrev.parent();
-                }
-
-                nodePrev.parent().add(nodeCurr);
-            } else {
-                // can move only one level up at a time, so simply add the node
-                nodePrev.add(nodeCurr);
-            }
-
-            nodePrev = nodeCurr;
-        }
+    private Node<T> toNode(TypeTreeTable table) {
+        return table.toNode(this::createElement);
     }
 
     @Override
@@ -160,16 +150,18 @@ public class TypeTreeV3<T extends TypeV2> extends TypeTreeV2<T> {
 
     private void writeNode(DataWriter out, Node<T> node) throws IOException {
         List<T> types = new ArrayList<>();
-        serializeNode(node, types, 0);
+        List<Integer> levels = new ArrayList<>();
+        serializeNode(node, types, levels, 0);
 
         // build string table
         AtomicInteger index = new AtomicInteger();
         Map<String, Integer> localMap = new LinkedHashMap<>();
-        Map<String, Integer> commonMap = StringTable.commonStrings(revision.major()).inverse();
+        CommonStringTable commonStrings = StringTable.commonStringTable(revision.major());
 
         Function<String, Integer> addStringOffset = typeName -> {
-            if (commonMap.containsKey(typeName)) {
-                return commonMap.get(typeName);
+            Integer commonOffset = commonStrings.offset(typeName);
+            if (commonOffset != null) {
+                return commonOffset;
             } else if (localMap.containsKey(typeName)) {
                 return localMap.get(typeName);
             } else {
@@ -179,17 +171,21 @@ public class TypeTreeV3<T extends TypeV2> extends TypeTreeV2<T> {
             }
         };
 
-        // apply string offsets
-        types.forEach(type -> {
-            type.typeOffset(addStringOffset.apply(type.typeName()));
-            type.nameOffset(addStringOffset.apply(type.fieldName()));
-        });
+        // collect string offsets, the types themselves are left unchanged
+        // since they may be shared with other trees
+        int[] typeOffsets = new int[types.size()];
+        int[] nameOffsets = new int[types.size()];
+        for (int i = 0; i < types.size(); i++) {
+            T type = types.get(i);
+            typeOffsets[i] = addStringOffset.apply(type.typeName());
+            nameOffsets[i] = addStringOffset.apply(type.fieldName());
+        }
 
         out.writeInt(types.size());
         out.writeInt(index.get());
 
-        for (T type : types) {
-            out.writeStruct(type);
+        for (int i = 0; i < types.size(); i++) {
+            types.get(i).write(out, levels.get(i), typeOffsets[i], nameOffsets[i]);
         }
 
         for (String string : localMap.keySet()) {
@@ -197,9 +193,9 @@ public class TypeTreeV3<T extends TypeV2> extends TypeTreeV2<T> {
         }
     }
 
-    private void serializeNode(Node<T> node, List<T> list, int level) {
-        node.data().treeLevel(level);
+    private void serializeNode(Node<T> node, List<T> list, List<Integer> levels, int level) {
         list.add(node.data());
-        node.forEach(n -> serializeNode(n, list, level + 1));
+        levels.add(level);
+        node.forEach(n -> serializeNode(n, list, levels, level + 1));
     }
 }
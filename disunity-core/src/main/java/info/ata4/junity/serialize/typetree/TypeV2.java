@@ -66,6 +66,15 @@ public class TypeV2 extends TypeV1 {
 
     @Override
     public void write(DataWriter out) throws IOException {
+        write(out, treeLevel, typeOffset, nameOffset);
+    }
+
+    /**
+     * Writes the type with the given level and string offsets instead of the
+     * stored ones, so types that are shared between trees don't need to be
+     * modified for writing.
+     */
+    void write(DataWriter out, int treeLevel, int typeOffset, int nameOffset) throws IOException {
         out.writeShort((short) version);
         out.writeUnsignedByte(treeLevel);
         out.writeBoolean(isArray);
@@ -0,0 +1,76 @@
+/*
+ ** 2026 October 18
+ **
+ ** The author disclaims copyright to this source code. In place of
+ ** a legal notice, here is a blessing:
+ **    May you do good and not evil.
+ **    May you find forgiveness for yourself and forgive others.
+ **    May you share freely, never taking more than you give.
+ */
+package info.ata4.util.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Input stream for a region of a file channel. Uses positional reads only, so
+ * any number of streams can share the same channel, even across threads.
+ *
+ * @author Nico Bergemann <barracuda415 at yahoo.de>
+ */
+public class FileChannelInputStream extends InputStream {
+
+    private final FileChannel fc;
+    private final long end;
+    private long position;
+
+    public FileChannelInputStream(FileChannel fc, long offset, long size) {
+        this.fc = fc;
+        this.position = offset;
+        this.end = offset + size;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+
+        if (position >= end) {
+            return -1;
+        }
+
+        len = (int) Math.min(len, end - position);
+
+        int read = fc.read(ByteBuffer.wrap(b, off, len), position);
+        if (read > 0) {
+            position += read;
+        }
+
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+
+        long skipped = Math.min(n, end - position);
+        position += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (int) Math.min(end - position, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ ** 2026 October 18
+ **
+ ** The author disclaims copyright to this source code. In place of
+ ** a legal notice, here is a blessing:
+ **    May you do good and not evil.
+ **    May you find forgiveness for yourself and forgive others.
+ **    May you share freely, never taking more than you give.
+ */
+package info.ata4.util.io;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * Immutable range of bytes inside a file, which can be copied or mapped
+ * without going through intermediate buffers.
+ *
+ * @author Nico Bergemann <barracuda415 at yahoo.de>
+ */
+public class FileRegion {
+
+    private final Path file;
+    private final long offset;
+    private final long length;
+
+    public FileRegion(Path file, long offset, long length) {
+        this.file = file;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    public long offset() {
+        return offset;
+    }
+
+    public long length() {
+        return length;
+    }
+
+    public long endOffset() {
+        return offset + length;
+    }
+
+    /**
+     * Copies the region to the target channel using
+     * {@link FileChannel#transferTo}, which lets the operating system copy the
+     * data directly if supported.
+     *
+     * @param target target channel
+     * @throws IOException
+     */
+    public void transferTo(WritableByteChannel target) throws IOException {
+        try (FileChannel fc = FileChannel.open(file, READ)) {
+            long position = offset;
+            long end = endOffset();
+            while (position < end) {
+                long transferred = fc.transferTo(position, end - position, target);
+                if (transferred <= 0) {
+                    throw new IOException("Can't transfer " + this);
+                }
+                position += transferred;
+            }
+        }
+    }
+
+    /**
+     * Maps the region read-only into memory.
+     *
+     * @return mapped buffer for the region
+     * @throws IOException
+     */
+    public MappedByteBuffer map() throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Region is too large to be mapped: " + this);
+        }
+
+        try (FileChannel fc = FileChannel.open(file, READ)) {
+            return fc.map(MapMode.READ_ONLY, offset, length);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return file + " @ " + offset + " - " + endOffset() + " (" + length + ")";
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ ** 2026 October 18
+ **
+ ** The author disclaims copyright to this source code. In place of
+ ** a legal notice, here is a blessing:
+ **    May you do good and not evil.
+ **    May you find forgiveness for yourself and forgive others.
+ **    May you share freely, never taking more than you give.
+ */
+package info.ata4.util.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * Read-only seekable channel for a region of a file. Positions are relative
+ * to the start of the region.
+ *
+ * @author Nico Bergemann <barracuda415 at yahoo.de>
+ */
+public class FileRegionChannel implements SeekableByteChannel {
+
+    private final FileChannel fc;
+    private final long offset;
+    private final long size;
+    private long position;
+
+    public FileRegionChannel(Path file, long offset, long size) throws IOException {
+        this.fc = FileChannel.open(file, READ);
+        this.offset = offset;
+        this.size = size;
+    }
+
+    public FileRegionChannel(FileRegion region) throws IOException {
+        this(region.file(), region.offset(), region.length());
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        if (position >= size) {
+            return -1;
+        }
+
+        // don't read past the end of the region
+        ByteBuffer buf = dst;
+        if (dst.remaining() > size - position) {
+            buf = dst.duplicate();
+            buf.limit(buf.position() + (int) (size - position));
+        }
+
+        int read = fc.read(buf, offset + position);
+        if (read > 0) {
+            if (buf != dst) {
+                dst.position(buf.position());
+            }
+            position += read;
+        }
+        return read;
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public long position() throws IOException {
+        return position;
+    }
+
+    @Override
+    public SeekableByteChannel position(long newPosition) throws IOException {
+        if (newPosition < 0) {
+            throw new IllegalArgumentException();
+        }
+        position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        return size;
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long size) throws IOException {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return fc.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        fc.close();
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ ** 2026 October 18
+ **
+ ** The author disclaims copyright to this source code. In place of
+ ** a legal notice, here is a blessing:
+ **    May you do good and not evil.
+ **    May you find forgiveness for yourself and forgive others.
+ **    May you share freely, never taking more than you give.
+ */
+package info.ata4.util.io;
+
+/**
+ * Per-thread pool for temporary byte arrays, such as the input and output
+ * buffers of block decompressors. Each thread reuses its own array, which only
+ * grows when a larger size is requested, so decoding blocks in a loop doesn't
+ * allocate a new array for every block.
+ *
+ * The returned array is only valid until the next call to {@link #get} on the
+ * same thread and must not be stored or passed to other threads.
+ *
+ * @author Nico Bergemann <barracuda415 at yahoo.de>
+ */
+public class ScratchBuffer {
+
+    // default size limit for arrays that are kept between calls
+    public static final int DEFAULT_MAX_RETAINED_SIZE = 1 << 24;
+
+    private final ThreadLocal<byte[]> buffers = new ThreadLocal<>();
+    private final int maxRetainedSize;
+
+    public ScratchBuffer() {
+        this(DEFAULT_MAX_RETAINED_SIZE);
+    }
+
+    public ScratchBuffer(int maxRetainedSize) {
+        this.maxRetainedSize = maxRetainedSize;
+    }
+
+    public int maxRetainedSize() {
+        return maxRetainedSize;
+    }
+
+    /**
+     * Returns an array with at least the given length for the current thread.
+     * Arrays above the retention limit are allocated on every call so that
+     * rare oversized requests don't stay in memory.
+     */
+    public byte[] get(int minSize) {
+        byte[] buffer = buffers.get();
+        if (buffer != null && buffer.length >= minSize) {
+            return buffer;
+        }
+
+        if (minSize > maxRetainedSize) {
+            return new byte[minSize];
+        }
+
+        // round up to the next power of two to avoid growing in small steps
+        int size = Math.max(minSize, Math.min(maxRetainedSize,
+                Integer.highestOneBit(Math.max(minSize - 1, 1)) << 1));
+        buffer = new byte[size];
+        buffers.set(buffer);
+        return buffer;
+    }
+
+    /**
+     * Drops the array of the current thread.
+     */
+    public void release() {
+        buffers.remove();
+    }
+}
@@ -0,0 +1,162 @@
+/* Partial import of https://github.com/jpountz/lz4-java, Apache 2.0 licensed. */
+
+package info.ata4.util.lz4;
+
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import static info.ata4.util.lz4.LZ4Constants.*;
+
+import java.nio.ByteBuffer;
+
+import info.ata4.util.lz4.SafeUtils;
+
+/**
+ * Decompressor that copies literals and matches 8 bytes at a time through
+ * {@link sun.misc.Unsafe}. All offsets are validated before the unchecked wide
+ * copies, so malformed or truncated input results in an {@link LZ4Exception}
+ * instead of memory accesses outside the arrays.
+ */
+public final class LZ4JavaUnsafeFastDecompressor extends LZ4FastDecompressor {
+
+  public static final LZ4FastDecompressor INSTANCE = new LZ4JavaUnsafeFastDecompressor();
+
+  @Override
+  public int decompress(byte[] src, final int srcOff, byte[] dest, final int destOff, int destLen) {
+
+
+    SafeUtils.checkRange(src, srcOff);
+    SafeUtils.checkRange(dest, destOff, destLen);
+
+    if (destLen == 0) {
+      if (SafeUtils.readByte(src, srcOff) != 0) {
+        throw new LZ4Exception("Malformed input at " + srcOff);
+      }
+      return 1;
+    }
+
+    // truncated input runs into the bounds checks of the safe reads and
+    // copies, which is reported like any other malformed input
+    try {
+      return decode(src, srcOff, dest, destOff, destLen);
+    } catch (IndexOutOfBoundsException e) {
+      throw new LZ4Exception("Malformed input, truncated block", e);
+    }
+  }
+
+  private static int decode(byte[] src, final int srcOff, byte[] dest, final int destOff, int destLen) {
+    final int srcEnd = src.length;
+    final int destEnd = destOff + destLen;
+
+    int sOff = srcOff;
+    int dOff = destOff;
+
+    while (true) {
+      final int token = SafeUtils.readByte(src, sOff) & 0xFF;
+      ++sOff;
+
+      // literals
+      int literalLen = token >>> ML_BITS;
+      if (literalLen == RUN_MASK) {
+        byte len = (byte) 0xFF;
+        while ((len = SafeUtils.readByte(src, sOff++)) == (byte) 0xFF) {
+          literalLen += 0xFF;
+        }
+        literalLen += len & 0xFF;
+      }
+
+      final int literalCopyEnd = dOff + literalLen;
+
+      if (literalLen < 0 || literalCopyEnd < dOff) {
+        throw new LZ4Exception("Malformed input at " + sOff);
+      }
+
+      if (literalCopyEnd > destEnd - COPY_LENGTH) {
+        if (literalCopyEnd != destEnd) {
+          throw new LZ4Exception("Malformed input at " + sOff);
+
+        } else {
+          System.arraycopy(src, sOff, dest, dOff, literalLen);
+          sOff += literalLen;
+          dOff = literalCopyEnd;
+          break; // EOF
+        }
+      }
+
+      // the wide copy may read up to 7 bytes past the literals, which are
+      // always followed by at least a match offset, a token and the last
+      // literals in valid input
+      if (sOff > srcEnd - COPY_LENGTH - literalLen) {
+        throw new LZ4Exception("Malformed input at " + sOff);
+      }
+
+      LZ4UnsafeUtils.wildArraycopy(src, sOff, dest, dOff, literalLen);
+      sOff += literalLen;
+      dOff = literalCopyEnd;
+
+      // matchs
+      final int matchDec = SafeUtils.readShortLE(src, sOff);
+      sOff += 2;
+      int matchOff = dOff - matchDec;
+
+      if (matchDec == 0 || matchOff < destOff) {
+        throw new LZ4Exception("Malformed input at " + sOff);
+      }
+
+      int matchLen = token & ML_MASK;
+      if (matchLen == ML_MASK) {
+        byte len = (byte) 0xFF;
+        while ((len = SafeUtils.readByte(src, sOff++)) == (byte) 0xFF) {
+          matchLen += 0xFF;
+        }
+        matchLen += len & 0xFF;
+      }
+      matchLen += MIN_MATCH;
+
+      final int matchCopyEnd = dOff + matchLen;
+
+      if (matchLen < 0 || matchCopyEnd < dOff) {
+        throw new LZ4Exception("Malformed input at " + sOff);
+      }
+
+      if (matchCopyEnd > destEnd - COPY_LENGTH) {
+        if (matchCopyEnd > destEnd) {
+          throw new LZ4Exception("Malformed input at " + sOff);
+        }
+        LZ4UnsafeUtils.safeIncrementalCopy(dest, matchOff, dOff, matchLen);
+      } else {
+        LZ4UnsafeUtils.wildIncrementalCopy(dest, matchOff, dOff, matchCopyEnd);
+      }
+      dOff = matchCopyEnd;
+    }
+
+
+    return sOff - srcOff;
+
+  }
+
+  @Override
+  public int decompress(ByteBuffer src, final int srcOff, ByteBuffer dest, final int destOff, int destLen) {
+
+    if (src.hasArray() && dest.hasArray()) {
+      return decompress(src.array(), srcOff + src.arrayOffset(), dest.array(), destOff + dest.arrayOffset(), destLen);
+    }
+
+    // direct buffers aren't accelerated
+    return LZ4JavaSafeFastDecompressor.INSTANCE.decompress(src, srcOff, dest, destOff, destLen);
+
+  }
+
+
+}
@@ -0,0 +1,73 @@
+/* Partial import of https://github.com/jpountz/lz4-java, Apache 2.0 licensed. */
+
+package info.ata4.util.lz4;
+
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import static info.ata4.util.lz4.LZ4Constants.COPY_LENGTH;
+
+import static info.ata4.util.lz4.UnsafeUtils.readByte;
+import static info.ata4.util.lz4.UnsafeUtils.readLong;
+import static info.ata4.util.lz4.UnsafeUtils.writeByte;
+import static info.ata4.util.lz4.UnsafeUtils.writeLong;
+
+/**
+ * Copy routines of the unsafe decompressor. None of these methods check the
+ * array bounds, callers must make sure that all bytes touched by the 8 byte
+ * wide copies, including the overshoot at the end, are inside the arrays.
+ */
+enum LZ4UnsafeUtils {
+  ;
+
+  static void safeArraycopy(byte[] src, int srcOff, byte[] dest, int destOff, int len) {
+    final int fastLen = len & 0xFFFFFFF8;
+    wildArraycopy(src, srcOff, dest, destOff, fastLen);
+    for (int i = fastLen; i < len; ++i) {
+      writeByte(dest, destOff + i, readByte(src, srcOff + i));
+    }
+  }
+
+  static void wildArraycopy(byte[] src, int srcOff, byte[] dest, int destOff, int len) {
+    for (int i = 0; i < len; i += 8) {
+      writeLong(dest, destOff + i, readLong(src, srcOff + i));
+    }
+  }
+
+  static void safeIncrementalCopy(byte[] dest, int matchOff, int dOff, int matchLen) {
+    for (int i = 0; i < matchLen; ++i) {
+      dest[dOff + i] = dest[matchOff + i];
+    }
+  }
+
+  static void wildIncrementalCopy(byte[] dest, int matchOff, int dOff, int matchCopyEnd) {
+    final int dist = dOff - matchOff;
+    if (dist < COPY_LENGTH) {
+      // overlapping match: expand the repeating pattern byte by byte until
+      // a multiple of its period is at least 8 bytes, after which it can be
+      // continued with wide copies from that distance
+      for (int i = 0; i < COPY_LENGTH; ++i) {
+        writeByte(dest, dOff + i, readByte(dest, matchOff + i));
+      }
+      dOff += COPY_LENGTH;
+      matchOff = dOff - ((COPY_LENGTH + dist - 1) / dist) * dist;
+    }
+    while (dOff < matchCopyEnd) {
+      writeLong(dest, dOff, readLong(dest, matchOff));
+      dOff += 8;
+      matchOff += 8;
+    }
+  }
+
+}
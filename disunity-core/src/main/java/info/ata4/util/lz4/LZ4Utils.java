@@ -25,11 +25,63 @@ import static info.ata4.util.lz4.LZ4Constants.ML_BITS;
 import static info.ata4.util.lz4.LZ4Constants.ML_MASK;
 import static info.ata4.util.lz4.LZ4Constants.RUN_MASK;
 
-enum LZ4Utils {
+public enum LZ4Utils {
   ;
 
   private static final int MAX_INPUT_SIZE = 0x7E000000;
 
+  /**
+   * System property that disables the unsafe implementations if set to
+   * <code>false</code>.
+   */
+  public static final String UNSAFE_PROPERTY = "info.ata4.util.lz4.unsafe";
+
+  private static final LZ4FastDecompressor FAST_DECOMPRESSOR = selectFastDecompressor();
+
+  /**
+   * Returns the fastest decompressor that works on this JVM. The unsafe
+   * variant is used if {@link sun.misc.Unsafe} is accessible and the platform
+   * supports unaligned memory access, otherwise the safe variant.
+   */
+  public static LZ4FastDecompressor fastDecompressor() {
+    return FAST_DECOMPRESSOR;
+  }
+
+  /**
+   * Returns the fast compressor, which trades compression ratio for speed.
+   */
+  public static LZ4Compressor fastCompressor() {
+    return LZ4JavaSafeCompressor.INSTANCE;
+  }
+
+  /**
+   * Returns the high compression compressor, which produces smaller output
+   * that decompresses just as fast, but is several times slower to compress.
+   */
+  public static LZ4Compressor highCompressor() {
+    return LZ4HCJavaSafeCompressor.INSTANCE;
+  }
+
+  private static LZ4FastDecompressor selectFastDecompressor() {
+    if (Boolean.parseBoolean(System.getProperty(UNSAFE_PROPERTY, "true"))
+        && Utils.isUnalignedAccessAllowed()) {
+      try {
+        // make sure the instance actually works before using it by
+        // decoding a short run with an overlapping match
+        LZ4FastDecompressor decompressor = LZ4JavaUnsafeFastDecompressor.INSTANCE;
+        byte[] src = {0x1E, 'a', 0x01, 0x00, (byte) 0x80, 'a', 'a', 'a', 'a', 'a', 'a', 'a', 'a'};
+        byte[] dest = new byte[27];
+        if (decompressor.decompress(src, dest) == src.length
+            && new String(dest, "US-ASCII").matches("a{27}")) {
+          return decompressor;
+        }
+      } catch (Throwable t) {
+        // fall through to the safe instance
+      }
+    }
+    return LZ4JavaSafeFastDecompressor.INSTANCE;
+  }
+
   static int maxCompressedLength(int length) {
     if (length < 0) {
       throw new IllegalArgumentException("length must be >= 0, got " + length);
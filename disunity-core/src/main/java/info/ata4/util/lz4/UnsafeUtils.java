@@ -0,0 +1,117 @@
+/* Partial import of https://github.com/jpountz/lz4-java, Apache 2.0 licensed. */
+
+package info.ata4.util.lz4;
+
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+
+/**
+ * Unchecked byte array access through {@code sun.misc.Unsafe}.
+ *
+ * The class is looked up by name and its methods are called through method
+ * handles, so nothing in this code base refers to the internal API directly
+ * and javac doesn't warn about it. VarHandles would be the supported
+ * replacement, but they need Java 9. The handles are constants, so the JIT
+ * compiles the calls into plain memory accesses.
+ */
+enum UnsafeUtils {
+  ;
+
+  private static final MethodHandle GET_BYTE;
+  private static final MethodHandle PUT_BYTE;
+  private static final MethodHandle GET_LONG;
+  private static final MethodHandle PUT_LONG;
+  private static final long BYTE_ARRAY_OFFSET;
+
+  static {
+    try {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+      theUnsafe.setAccessible(true);
+      Object unsafe = theUnsafe.get(null);
+
+      MethodHandles.Lookup lookup = MethodHandles.lookup();
+      GET_BYTE = lookup.findVirtual(unsafeClass, "getByte",
+          MethodType.methodType(byte.class, Object.class, long.class)).bindTo(unsafe);
+      PUT_BYTE = lookup.findVirtual(unsafeClass, "putByte",
+          MethodType.methodType(void.class, Object.class, long.class, byte.class)).bindTo(unsafe);
+      GET_LONG = lookup.findVirtual(unsafeClass, "getLong",
+          MethodType.methodType(long.class, Object.class, long.class)).bindTo(unsafe);
+      PUT_LONG = lookup.findVirtual(unsafeClass, "putLong",
+          MethodType.methodType(void.class, Object.class, long.class, long.class)).bindTo(unsafe);
+
+      MethodHandle arrayBaseOffset = lookup.findVirtual(unsafeClass, "arrayBaseOffset",
+          MethodType.methodType(int.class, Class.class)).bindTo(unsafe);
+      MethodHandle arrayIndexScale = lookup.findVirtual(unsafeClass, "arrayIndexScale",
+          MethodType.methodType(int.class, Class.class)).bindTo(unsafe);
+      BYTE_ARRAY_OFFSET = (int) arrayBaseOffset.invokeExact((Class<?>) byte[].class);
+      if ((int) arrayIndexScale.invokeExact((Class<?>) byte[].class) != 1) {
+        throw new ExceptionInInitializerError("Unsupported byte array layout");
+      }
+    } catch (ExceptionInInitializerError e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new ExceptionInInitializerError("Cannot access Unsafe");
+    }
+  }
+
+  static byte readByte(byte[] src, int srcOff) {
+    try {
+      return (byte) GET_BYTE.invokeExact((Object) src, BYTE_ARRAY_OFFSET + srcOff);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  static void writeByte(byte[] dest, int destOff, byte value) {
+    try {
+      PUT_BYTE.invokeExact((Object) dest, BYTE_ARRAY_OFFSET + destOff, value);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  static long readLong(byte[] src, int srcOff) {
+    try {
+      return (long) GET_LONG.invokeExact((Object) src, BYTE_ARRAY_OFFSET + srcOff);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  static void writeLong(byte[] dest, int destOff, long value) {
+    try {
+      PUT_LONG.invokeExact((Object) dest, BYTE_ARRAY_OFFSET + destOff, value);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  private static RuntimeException rethrow(Throwable t) {
+    // the Unsafe methods don't throw checked exceptions
+    if (t instanceof RuntimeException) {
+      throw (RuntimeException) t;
+    }
+    if (t instanceof Error) {
+      throw (Error) t;
+    }
+    throw new IllegalStateException(t);
+  }
+
+}
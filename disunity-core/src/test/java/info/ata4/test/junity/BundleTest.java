@@ -11,21 +11,42 @@ package info.ata4.test.junity;
 
 import com.google.common.io.CountingOutputStream;
 import info.ata4.junity.bundle.Bundle;
+import info.ata4.junity.bundle.BundleBlockCache;
+import info.ata4.junity.bundle.BundleBlockInfo;
+import info.ata4.junity.bundle.BundleEntry;
+import info.ata4.junity.bundle.BundleEntryInfo;
 import info.ata4.junity.bundle.BundleHeader;
 import info.ata4.junity.bundle.BundleReader;
+import info.ata4.junity.bundle.BundleWriter;
 import info.ata4.test.ParameterizedUtils;
 import static info.ata4.util.function.IOConsumer.uncheck;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.output.NullOutputStream;
 import org.junit.After;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -110,4 +131,435 @@ public class BundleTest {
             assertEquals("Entry size must match size of InputStream", entry.size(), cos.getCount());
         }));
     }
+
+    @Test
+    public void byteChannelReads() throws IOException {
+        for (BundleEntry entry : bundle.entries()) {
+            assertChannelReads(entry);
+        }
+    }
+
+    @Test
+    public void byteChannelReadsFS() throws IOException {
+        Path tmpFile = Files.createTempFile("disunity", ".unity3d");
+
+        try {
+            // small blocks, so that reads cross block boundaries
+            writeFS(tmpFile, BundleBlockInfo.COMPRESSION_LZ4HC, 1 << 12, null);
+
+            try (BundleReader readerFS = new BundleReader(tmpFile)) {
+                for (BundleEntry entry : readerFS.read().entries()) {
+                    assertChannelReads(entry);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(tmpFile);
+        }
+    }
+
+    @Test
+    public void writeFSRoundTrip() throws IOException {
+        writeFSRoundTrip(BundleBlockInfo.COMPRESSION_LZ4HC, 1 << 12, null);
+    }
+
+    @Test
+    public void writeFSParallelRoundTrip() throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            writeFSRoundTrip(BundleBlockInfo.COMPRESSION_LZMA, 1 << 16, executor);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void writeFSRoundTrip(int scheme, int blockSize, Executor executor) throws IOException {
+        Path tmpFile = Files.createTempFile("disunity", ".unity3d");
+
+        try {
+            writeFS(tmpFile, scheme, blockSize, executor);
+
+            try (BundleReader readerFS = new BundleReader(tmpFile)) {
+                assertEntriesEqual(bundle.entries(), readerFS.read(), tmpFile);
+            }
+        } finally {
+            Files.deleteIfExists(tmpFile);
+        }
+    }
+
+    @Test
+    public void oversizedBlocksReused() throws IOException {
+        Path tmpFile = Files.createTempFile("disunity", ".unity3d");
+
+        try {
+            writeFS(tmpFile, BundleBlockInfo.COMPRESSION_LZMA, 1 << 16, null);
+
+            // all blocks are too large for the cache
+            BundleBlockCache cache = new BundleBlockCache(1024);
+            try (BundleReader readerFS = new BundleReader(tmpFile)) {
+                readerFS.blockCache(cache);
+                Bundle bundleFS = readerFS.read();
+                assertEntriesEqual(bundle.entries(), bundleFS, tmpFile);
+
+                // entries are read in order, so each block is decoded once
+                // even if it's shared by multiple entries
+                assertTrue("Oversized blocks must only be decoded once",
+                        cache.misses() <= bundleFS.blockInfos().size());
+                assertEquals("Oversized blocks must not be cached", 0, cache.size());
+            }
+        } finally {
+            Files.deleteIfExists(tmpFile);
+        }
+    }
+
+    @Test
+    public void checkpointsRoundTrip() throws IOException {
+        assumeCheckpoints();
+
+        Path tmpFile = Files.createTempFile("disunity", ".unity3d");
+        Path sidecar = Files.createTempFile("disunity", ".dcp");
+
+        try {
+            Files.copy(file, tmpFile, StandardCopyOption.REPLACE_EXISTING);
+            Files.delete(sidecar);
+
+            writeCheckpoints(tmpFile, sidecar);
+            assertTrue("Checkpoint file must be written", Files.size(sidecar) > 0);
+
+            // entries are read backwards, so every block is restored from a
+            // checkpoint instead of the LZMA stream
+            assertCheckpointedEntriesEqual(tmpFile, sidecar);
+
+            // make sure that the checkpoints were actually used
+            corruptCheckpoints(sidecar);
+            try (BundleReader readerCP = new BundleReader(tmpFile)) {
+                readerCP.checkpointFile(sidecar);
+                Bundle bundleCP = readerCP.read();
+                List<BundleEntry> entries = bundleCP.entries();
+                IOUtils.toByteArray(entries.get(entries.size() - 1).inputStream());
+                fail("Corrupt checkpoint must be read");
+            } catch (IOException ex) {
+                // expected
+            }
+        } finally {
+            Files.deleteIfExists(tmpFile);
+            Files.deleteIfExists(sidecar);
+        }
+    }
+
+    @Test
+    public void staleCheckpointsIgnored() throws IOException {
+        assumeCheckpoints();
+
+        Path tmpFile = Files.createTempFile("disunity", ".unity3d");
+        Path sidecar = Files.createTempFile("disunity", ".dcp");
+
+        try {
+            Files.copy(file, tmpFile, StandardCopyOption.REPLACE_EXISTING);
+            Files.delete(sidecar);
+
+            // the checkpoint data would fail to decode if it was used
+            writeCheckpoints(tmpFile, sidecar);
+            corruptCheckpoints(sidecar);
+            byte[] stale = Files.readAllBytes(sidecar);
+            FileTime modified = Files.getLastModifiedTime(tmpFile);
+
+            // different modification time
+            Files.setLastModifiedTime(tmpFile, FileTime.fromMillis(modified.toMillis() + 10000));
+            assertCheckpointedEntriesEqual(tmpFile, sidecar);
+
+            // different checksum, but same size and modification time
+            byte[] data = Files.readAllBytes(file);
+            byte[] revision = bundle.header().unityRevision().toString()
+                    .getBytes(StandardCharsets.US_ASCII);
+            int revisionOffset = indexOf(data, revision);
+            assertTrue("Revision must be in the header", revisionOffset > 0);
+            data[revisionOffset + revision.length - 1]++;
+            Files.write(tmpFile, data);
+            Files.setLastModifiedTime(tmpFile, modified);
+            Files.write(sidecar, stale);
+            assertCheckpointedEntriesEqual(tmpFile, sidecar);
+
+            // different size
+            Files.copy(file, tmpFile, StandardCopyOption.REPLACE_EXISTING);
+            Files.write(tmpFile, new byte[1], StandardOpenOption.APPEND);
+            Files.setLastModifiedTime(tmpFile, modified);
+            Files.write(sidecar, stale);
+            assertCheckpointedEntriesEqual(tmpFile, sidecar);
+        } finally {
+            Files.deleteIfExists(tmpFile);
+            Files.deleteIfExists(sidecar);
+        }
+    }
+
+    @Test
+    public void truncatedCheckpointsIgnored() throws IOException {
+        assumeCheckpoints();
+
+        Path tmpFile = Files.createTempFile("disunity", ".unity3d");
+        Path sidecar = Files.createTempFile("disunity", ".dcp");
+
+        try {
+            Files.copy(file, tmpFile, StandardCopyOption.REPLACE_EXISTING);
+            Files.delete(sidecar);
+
+            writeCheckpoints(tmpFile, sidecar);
+            byte[] complete = Files.readAllBytes(sidecar);
+
+            // truncate in the header, in the window table and in the window data
+            int[] lengths = {0, 20, 50, complete.length - 1};
+            for (int length : lengths) {
+                Files.write(sidecar, Arrays.copyOf(complete, length));
+                assertCheckpointedEntriesEqual(tmpFile, sidecar);
+            }
+        } finally {
+            Files.deleteIfExists(tmpFile);
+            Files.deleteIfExists(sidecar);
+        }
+    }
+
+    @Test
+    public void repackFSRoundTrip() throws IOException {
+        Path tmpFile = Files.createTempFile("disunity", ".unity3d");
+        Path repackFile = Files.createTempFile("disunity", ".unity3d");
+
+        try {
+            writeFS(tmpFile, BundleBlockInfo.COMPRESSION_LZ4HC, 1 << 12, null);
+
+            try (BundleReader readerFS = new BundleReader(tmpFile)) {
+                Bundle bundleFS = readerFS.read();
+
+                // replace the first entry with data of a different size, so
+                // that all following entries are moved
+                BundleEntry original = bundleFS.entries().get(0);
+                byte[] data = IOUtils.toByteArray(original.inputStream());
+                byte[] replaced = new byte[data.length + 1000];
+                for (int i = 0; i < data.length; i++) {
+                    replaced[i] = (byte) ~data[i];
+                }
+                BundleEntry replacement = new BundleEntry() {
+                    @Override
+                    public String name() {
+                        return original.name();
+                    }
+
+                    @Override
+                    public long size() {
+                        return replaced.length;
+                    }
+
+                    @Override
+                    public InputStream inputStream() throws IOException {
+                        return new ByteArrayInputStream(replaced);
+                    }
+                };
+
+                try (BundleWriter writer = new BundleWriter(repackFile)) {
+                    writer.blockSize(1 << 12);
+                    writer.repack(readerFS, Collections.singletonList(replacement),
+                            (stage, complete) -> {});
+                }
+
+                List<BundleEntry> entries = new ArrayList<>(bundleFS.entries());
+                entries.set(0, replacement);
+
+                try (BundleReader readerRepack = new BundleReader(repackFile)) {
+                    Bundle bundleRepack = readerRepack.read();
+                    assertEntriesEqual(entries, bundleRepack, repackFile);
+
+                    // blocks after the replaced entry are copied as they are
+                    // instead of being encoded again
+                    BundleEntryInfo replacedInfo = bundleFS.entryInfos().get(0);
+                    List<BundleBlockInfo> blocks = bundleFS.blockInfos();
+                    List<BundleBlockInfo> blocksRepack = bundleRepack.blockInfos();
+                    List<byte[]> raw = rawBlocks(tmpFile, bundleFS);
+                    List<byte[]> rawRepack = rawBlocks(repackFile, bundleRepack);
+
+                    long blockOffset = 0;
+                    int copied = 0;
+                    for (int i = 0; i < blocks.size(); i++) {
+                        BundleBlockInfo block = blocks.get(i);
+                        if (blockOffset >= replacedInfo.offset() + replacedInfo.size()) {
+                            int iRepack = blocksRepack.size() - blocks.size() + i;
+                            BundleBlockInfo blockRepack = blocksRepack.get(iRepack);
+                            assertEquals("Copied block flags must match",
+                                    block.flags(), blockRepack.flags());
+                            assertEquals("Copied block sizes must match",
+                                    block.uncompressedSize(), blockRepack.uncompressedSize());
+                            assertArrayEquals("Copied block data must match",
+                                    raw.get(i), rawRepack.get(iRepack));
+                            copied++;
+                        }
+                        blockOffset += block.uncompressedSize();
+                    }
+
+                    if (entries.size() > 1) {
+                        assertTrue("Blocks after the replaced entry must be copied", copied > 0);
+                    }
+                }
+            }
+        } finally {
+            Files.deleteIfExists(tmpFile);
+            Files.deleteIfExists(repackFile);
+        }
+    }
+
+    private void writeFS(Path file, int scheme, int blockSize, Executor executor) throws IOException {
+        Bundle bundleFS = new Bundle();
+        BundleHeader headerFS = bundleFS.header();
+        headerFS.signature(BundleHeader.SIGNATURE_FS);
+        headerFS.streamVersion(6);
+        headerFS.unityVersion(bundle.header().unityVersion());
+        headerFS.unityRevision(bundle.header().unityRevision());
+        bundleFS.entries().addAll(bundle.entries());
+
+        try (BundleWriter writer = new BundleWriter(file)) {
+            // use small blocks so that entries span multiple blocks
+            writer.blockSize(blockSize);
+            writer.compressionScheme(scheme);
+            writer.executor(executor);
+            writer.write(bundleFS, (stage, complete) -> {});
+        }
+    }
+
+    private static void assertChannelReads(BundleEntry entry) throws IOException {
+        byte[] expected = IOUtils.toByteArray(entry.inputStream());
+        int size = expected.length;
+
+        try (SeekableByteChannel channel = entry.byteChannel()) {
+            assertEquals("Channel size must match entry size", size, channel.size());
+
+            // a full buffer is not the end of the channel
+            if (size > 0) {
+                assertEquals("Read into full buffer must return 0",
+                        0, channel.read(ByteBuffer.allocate(0)));
+                assertEquals("Read into full buffer must not move", 0, channel.position());
+            }
+
+            // sequential reads in chunks that don't line up with the blocks
+            ByteBuffer bb = ByteBuffer.allocate(size);
+            ByteBuffer chunk = ByteBuffer.allocate(5000);
+            while (bb.hasRemaining()) {
+                chunk.clear();
+                chunk.limit(Math.min(chunk.capacity(), bb.remaining()));
+                assertTrue("Channel must not end early", channel.read(chunk) > 0);
+                chunk.flip();
+                bb.put(chunk);
+            }
+            assertArrayEquals("Sequential channel data must match", expected, bb.array());
+            assertEquals("Channel must end after the entry", -1, channel.read(ByteBuffer.allocate(1)));
+
+            // forward and backward seeks, with reads across the 4 KiB blocks
+            // of FS bundles and the 1 MiB blocks of web bundles
+            long[] positions = {
+                size / 2, 0, size - 1, size / 3, (1 << 12) - 7, (1 << 20) - 7,
+                size / 4, size - 1000
+            };
+            for (long position : positions) {
+                if (position < 0 || position >= size) {
+                    continue;
+                }
+
+                int length = (int) Math.min(10000, size - position);
+                ByteBuffer range = ByteBuffer.allocate(length);
+                channel.position(position);
+                while (range.hasRemaining()) {
+                    assertTrue("Channel must not end early", channel.read(range) > 0);
+                }
+                assertEquals("Position must advance", position + length, channel.position());
+                assertArrayEquals("Channel data at " + position + " must match",
+                        Arrays.copyOfRange(expected, (int) position, (int) position + length),
+                        range.array());
+            }
+        }
+    }
+
+    private static List<byte[]> rawBlocks(Path file, Bundle bundle) throws IOException {
+        // blocks are stored back to back after the header
+        byte[] data = Files.readAllBytes(file);
+        List<byte[]> raw = new ArrayList<>();
+        int offset = bundle.header().headerSize();
+        for (BundleBlockInfo block : bundle.blockInfos()) {
+            int end = offset + (int) block.compressedSize();
+            raw.add(Arrays.copyOfRange(data, offset, end));
+            offset = end;
+        }
+        return raw;
+    }
+
+    private void assumeCheckpoints() {
+        // checkpoints are only used for the LZMA stream of UnityWeb bundles
+        assumeTrue(bundle.header().compressed());
+    }
+
+    private void writeCheckpoints(Path bundleFile, Path sidecar) throws IOException {
+        try (BundleReader readerCP = new BundleReader(bundleFile)) {
+            readerCP.checkpointFile(sidecar);
+            Bundle bundleCP = readerCP.read();
+            for (BundleEntry entry : bundleCP.entries()) {
+                IOUtils.toByteArray(entry.inputStream());
+            }
+        }
+    }
+
+    private void assertCheckpointedEntriesEqual(Path bundleFile, Path sidecar) throws IOException {
+        try (BundleReader readerCP = new BundleReader(bundleFile)) {
+            readerCP.checkpointFile(sidecar);
+            Bundle bundleCP = readerCP.read();
+
+            List<BundleEntry> entries = bundle.entries();
+            List<BundleEntry> entriesCP = bundleCP.entries();
+            assertEquals("Bundle entry lists must match in size",
+                    entries.size(), entriesCP.size());
+
+            for (int i = entries.size() - 1; i >= 0; i--) {
+                assertEquals("Entry names must match",
+                        entries.get(i).name(), entriesCP.get(i).name());
+                assertArrayEquals("Entry data must match",
+                        IOUtils.toByteArray(entries.get(i).inputStream()),
+                        IOUtils.toByteArray(entriesCP.get(i).inputStream()));
+            }
+        }
+    }
+
+    private static void corruptCheckpoints(Path sidecar) throws IOException {
+        byte[] data = Files.readAllBytes(sidecar);
+
+        // overwrite the Deflate streams behind the header and the window table
+        int windows = ByteBuffer.wrap(data).getInt(44);
+        assertTrue("Checkpoint file must contain windows", windows > 0);
+        Arrays.fill(data, 48 + windows * 20, data.length, (byte) 0xff);
+
+        Files.write(sidecar, data);
+    }
+
+    private static int indexOf(byte[] data, byte[] pattern) {
+        outer:
+        for (int i = 0; i <= data.length - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (data[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static void assertEntriesEqual(List<BundleEntry> entries, Bundle bundleRead,
+            Path file) throws IOException {
+        assertEquals("Header file size and actual file size must be equal",
+                bundleRead.header().completeFileSize(), Files.size(file));
+
+        List<BundleEntry> entriesRead = bundleRead.entries();
+        assertEquals("Bundle entry lists must match in size",
+                entries.size(), entriesRead.size());
+
+        for (int i = 0; i < entries.size(); i++) {
+            assertEquals("Entry names must match",
+                    entries.get(i).name(), entriesRead.get(i).name());
+            assertArrayEquals("Entry data must match",
+                    IOUtils.toByteArray(entries.get(i).inputStream()),
+                    IOUtils.toByteArray(entriesRead.get(i).inputStream()));
+        }
+    }
 }
@@ -9,22 +9,42 @@
  */
 package info.ata4.test.junity;
 
+import info.ata4.io.DataWriter;
 import info.ata4.io.DataWriters;
+import info.ata4.junity.serialize.ObjectDataMode;
 import info.ata4.junity.serialize.SerializedFile;
 import info.ata4.junity.serialize.SerializedFileHeader;
 import info.ata4.junity.serialize.SerializedFileReader;
 import info.ata4.junity.serialize.SerializedFileWriter;
+import info.ata4.junity.serialize.SerializedObjectData;
+import info.ata4.junity.serialize.deserialize.FieldAccessor;
+import info.ata4.junity.serialize.deserialize.FieldLayout;
+import info.ata4.junity.serialize.deserialize.ObjectDeserializer;
+import info.ata4.junity.serialize.deserialize.StructValue;
+import info.ata4.junity.serialize.objectinfo.ObjectInfo;
+import info.ata4.junity.serialize.objectinfo.ObjectInfoTable;
 import info.ata4.junity.serialize.typetree.Type;
+import info.ata4.junity.serialize.typetree.TypeRoot;
+import info.ata4.junity.serialize.typetree.TypeTreePool;
+import info.ata4.junity.serialize.typetree.TypeTreeTable;
 import info.ata4.test.ParameterizedUtils;
 import info.ata4.util.collection.Node;
 import info.ata4.util.io.DataBlock;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import static java.nio.file.StandardOpenOption.WRITE;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.commons.io.FileUtils;
 import org.junit.Before;
 import org.junit.Test;
@@ -33,7 +53,10 @@ import org.junit.runners.Parameterized;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
 
 /**
  *
@@ -57,6 +80,30 @@ public class SerializedFileTest {
         return params;
     }
 
+    // fields of the root types of a few classes in Unity 5 files, stored as
+    // root type followed by "type name size" of each direct child
+    private static final Map<Integer, List<String>> KNOWN_FIELDS = new HashMap<>();
+
+    static {
+        KNOWN_FIELDS.put(1, Arrays.asList(
+            "GameObject",
+            "vector m_Component -1",
+            "unsigned int m_Layer 4",
+            "string m_Name -1",
+            "UInt16 m_Tag 2",
+            "bool m_IsActive 1"
+        ));
+        KNOWN_FIELDS.put(4, Arrays.asList(
+            "Transform",
+            "PPtr<GameObject> m_GameObject 12",
+            "Quaternionf m_LocalRotation 16",
+            "Vector3f m_LocalPosition 12",
+            "Vector3f m_LocalScale 12",
+            "vector m_Children -1",
+            "PPtr<Transform> m_Father 12"
+        ));
+    }
+
     private final Path readFile;
     private SerializedFile asset;
 
@@ -127,6 +174,276 @@ public class SerializedFileTest {
         }
     }
 
+    @Test
+    public void typeTreeTableHasKnownFields() {
+        // type trees are only read as tables in Unity 5 files
+        if (asset.header().version() <= 13 || !asset.metadata().typeTree().embedded()) {
+            return;
+        }
+
+        Map<Integer, TypeRoot<Type>> typeMap = asset.metadata().typeTree().typeMap();
+        int checked = 0;
+
+        for (Map.Entry<Integer, List<String>> knownEntry : KNOWN_FIELDS.entrySet()) {
+            TypeRoot<Type> typeRoot = typeMap.get(knownEntry.getKey());
+            if (typeRoot == null) {
+                continue;
+            }
+
+            List<String> known = knownEntry.getValue();
+
+            // reading the objects must not create the nodes yet
+            TypeTreeTable table = typeRoot.table();
+            assertNotNull("Type tree must still be a table after reading", table);
+            assertEquals("Root type must match", known.get(0), table.typeName(0));
+            assertEquals("Root field must be Base", "Base", table.fieldName(0));
+            assertEquals("Root level must be 0", 0, table.level(0));
+
+            List<String> fields = new ArrayList<>();
+            for (int i = 1; i < table.numFields(); i++) {
+                if (table.level(i) == 1) {
+                    fields.add(table.typeName(i) + " " + table.fieldName(i) + " " + table.size(i));
+                }
+            }
+            assertEquals("Table fields must match", known.subList(1, known.size()), fields);
+
+            // the nodes replace the table once they're created
+            Node<Type> nodes = typeRoot.nodes();
+            assertNull("Table must be dropped after creating the nodes", typeRoot.table());
+            assertEquals("Root type must match", known.get(0), nodes.data().typeName());
+
+            List<String> children = new ArrayList<>();
+            nodes.forEach(child -> {
+                Type type = child.data();
+                children.add(type.typeName() + " " + type.fieldName() + " " + type.size());
+            });
+            assertEquals("Node fields must match", known.subList(1, known.size()), children);
+
+            checked++;
+        }
+
+        assertTrue("Type tree must contain known classes", checked > 0);
+    }
+
+    @Test
+    public void objectTypeTreesResolvedLazily() {
+        asset.objectData().stream()
+            .filter(object -> object.typeTree() != null)
+            .findFirst()
+            .ifPresent(object -> {
+                TypeRoot<Type> typeRoot = asset.metadata().typeTree().typeMap()
+                        .get(object.info().typeID());
+                assertSame("Object type tree must come from its type root",
+                        typeRoot.nodes(), object.typeTree());
+            });
+    }
+
+    @Test
+    public void objectDataModesMatch() throws IOException {
+        for (ObjectDataMode mode : EnumSet.of(ObjectDataMode.MAPPED, ObjectDataMode.LAZY)) {
+            try (SerializedFileReader assetReader = new SerializedFileReader(readFile)) {
+                assetReader.objectDataMode(mode);
+                SerializedFile asset2 = assetReader.read();
+
+                List<SerializedObjectData> objects = asset.objectData();
+                List<SerializedObjectData> objects2 = asset2.objectData();
+                assertEquals("Object count must match", objects.size(), objects2.size());
+
+                for (int i = 0; i < objects.size(); i++) {
+                    ByteBuffer bb = objects.get(i).buffer();
+                    ByteBuffer bb2 = objects2.get(i).buffer();
+                    bb.rewind();
+                    bb2.rewind();
+                    assertEquals(mode + " object data must match", bb, bb2);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void objectReadsCombined() throws IOException {
+        Path writeFile = Files.createTempFile("writeTest", ".assets");
+        try {
+            // small objects that are only separated by alignment padding
+            writeObjects(writeFile, 1001, 3, 500);
+
+            try (SerializedFileReader assetReader = new SerializedFileReader(writeFile)) {
+                List<ObjectInfo> infos = sortedInfos(assetReader.read());
+
+                assertEquals("Close objects must be read at once", 1, assetReader.objectReads());
+                assertEquals("Padding between the objects must be read",
+                        gapSize(infos, 0) + gapSize(infos, 1),
+                        assetReader.objectBytesRead() - assetReader.objectBytesRequested());
+                assertTrue("Padding must exist between the objects",
+                        assetReader.objectBytesRead() > assetReader.objectBytesRequested());
+            }
+        } finally {
+            Files.deleteIfExists(writeFile);
+        }
+    }
+
+    @Test
+    public void objectReadsSplitAtGaps() throws IOException {
+        Path writeFile = Files.createTempFile("writeTest", ".assets");
+        try {
+            // the middle object is shrunk after writing, which leaves a gap
+            // of unused data that is too large to be read along
+            SerializedFile written = writeObjects(writeFile, 1001, 200003, 3000);
+            List<ObjectInfo> writtenInfos = sortedInfos(written);
+            writtenInfos.get(1).length(8);
+            updateObjectInfos(writeFile, written);
+
+            try (SerializedFileReader assetReader = new SerializedFileReader(writeFile)) {
+                List<ObjectInfo> infos = sortedInfos(assetReader.read());
+                assertEquals("Object length must be updated", 8, infos.get(1).length());
+                assertTrue("Gap must be larger than the combined read limit",
+                        gapSize(infos, 1) > 1 << 16);
+
+                assertEquals("Objects must be read separately after a large gap",
+                        2, assetReader.objectReads());
+                assertEquals("Only the padding before the gap must be read",
+                        gapSize(infos, 0),
+                        assetReader.objectBytesRead() - assetReader.objectBytesRequested());
+            }
+        } finally {
+            Files.deleteIfExists(writeFile);
+        }
+    }
+
+    @Test
+    public void objectReadsSplitAtMaxSize() throws IOException {
+        Path writeFile = Files.createTempFile("writeTest", ".assets");
+        try {
+            // adjacent objects that are too large for a single read
+            writeObjects(writeFile, 5 << 20, 5 << 20);
+
+            try (SerializedFileReader assetReader = new SerializedFileReader(writeFile)) {
+                assetReader.read();
+
+                assertEquals("Large objects must be read separately", 2, assetReader.objectReads());
+                assertEquals("Adjacent objects must not read extra data",
+                        0, assetReader.objectBytesRead() - assetReader.objectBytesRequested());
+            }
+        } finally {
+            Files.deleteIfExists(writeFile);
+        }
+    }
+
+    @Test
+    public void objectStreamMatches() throws IOException {
+        Map<Long, ByteBuffer> buffers = new HashMap<>();
+        asset.objectData().forEach(object -> buffers.put(object.id(), object.buffer()));
+
+        try (SerializedFileReader assetReader = new SerializedFileReader(readFile)) {
+            assetReader.objectDataMode(ObjectDataMode.NONE);
+            assetReader.read();
+
+            AtomicLong offset = new AtomicLong(-1);
+            long count = assetReader.objects(true).peek(object -> {
+                assertTrue("Objects must be in file order",
+                        object.info().offset() >= offset.getAndSet(object.info().offset()));
+
+                ByteBuffer bb = buffers.get(object.id());
+                bb.rewind();
+                assertEquals("Streamed object data must match", bb, object.buffer());
+            }).count();
+
+            assertEquals("Object count must match", buffers.size(), count);
+        }
+    }
+
+    @Test
+    public void objectsDeserialize() throws IOException {
+        ObjectDeserializer deserializer = new ObjectDeserializer(asset);
+        for (SerializedObjectData object : asset.objectData()) {
+            if (object.typeTree() == null) {
+                continue;
+            }
+
+            ByteBuffer bb = object.buffer().duplicate();
+            bb.rewind();
+            StructValue value = deserializer.deserialize(bb, object.typeTree());
+
+            assertEquals("Type names must match",
+                    object.typeTree().data().typeName(), value.typeName());
+            assertEquals("Object data must be read completely: " + value.typeName(),
+                    bb.limit(), bb.position());
+        }
+    }
+
+    @Test
+    public void fieldAccessorsMatch() throws IOException {
+        ObjectDeserializer deserializer = new ObjectDeserializer(asset);
+        for (SerializedObjectData object : asset.objectData()) {
+            if (object.typeTree() == null) {
+                continue;
+            }
+
+            ByteBuffer bb = object.buffer();
+            StructValue value = deserializer.deserialize(object);
+            FieldLayout layout = deserializer.layout(object.typeTree());
+
+            assertTrue("Fixed-size prefix must be within object data",
+                    layout.fixedSize() <= bb.limit());
+
+            for (FieldAccessor accessor : layout.accessors()) {
+                if (!accessor.isPrimitive()) {
+                    continue;
+                }
+
+                Object fieldValue = value;
+                for (String name : accessor.path().split("\\.")) {
+                    fieldValue = ((StructValue) fieldValue).get(name);
+                }
+
+                assertEquals("Accessor value must match: " + accessor,
+                        fieldValue, accessor.get(bb));
+            }
+        }
+    }
+
+    @Test
+    public void typeTreePoolShares() throws IOException {
+        TypeTreePool pool = new TypeTreePool();
+        SerializedFile asset1;
+        SerializedFile asset2;
+
+        try (SerializedFileReader assetReader = new SerializedFileReader(readFile)) {
+            assetReader.typeTreePool(pool);
+            asset1 = assetReader.read();
+        }
+
+        try (SerializedFileReader assetReader = new SerializedFileReader(readFile)) {
+            assetReader.typeTreePool(pool);
+            asset2 = assetReader.read();
+        }
+
+        // only Unity 5 type trees are pooled
+        if (asset.header().version() > 13 && asset.metadata().typeTree().embedded()) {
+            Map<Integer, TypeRoot<Type>> typeMap1 = asset1.metadata().typeTree().typeMap();
+            Map<Integer, TypeRoot<Type>> typeMap2 = asset2.metadata().typeTree().typeMap();
+            typeMap1.forEach((classID, typeRoot) -> assertSame("Type trees must be shared",
+                    typeRoot.nodes(), typeMap2.get(classID).nodes()));
+        }
+
+        // pooled trees must produce the same file and stay unchanged
+        for (int i = 0; i < 2; i++) {
+            Path writeFile = Files.createTempFile("writeTest", ".assets");
+            try {
+                try (SerializedFileWriter writer = new SerializedFileWriter(
+                        DataWriters.forFile(writeFile, WRITE))) {
+                    writer.write(i == 0 ? asset1 : asset2);
+                }
+
+                assertEquals("Output file must match input file",
+                        FileUtils.checksumCRC32(readFile.toFile()),
+                        FileUtils.checksumCRC32(writeFile.toFile()));
+            } finally {
+                Files.deleteIfExists(writeFile);
+            }
+        }
+    }
+
     @Test
     public void directCopyMatches() throws IOException {
         Path writeFile = Files.createTempFile("writeTest", ".assets");
@@ -143,4 +460,54 @@ public class SerializedFileTest {
             Files.deleteIfExists(writeFile);
         }
     }
+
+    private SerializedFile writeObjects(Path file, int... lengths) throws IOException {
+        // reuse the structure of the test file with new objects of the given
+        // sizes, which are written in this order
+        List<SerializedObjectData> objects = asset.objectData();
+        assumeTrue(objects.size() >= lengths.length);
+
+        ObjectInfoTable<ObjectInfo> infoTable = asset.metadata().objectInfoTable();
+        Map<Long, ObjectInfo> infoMap = infoTable.infoMap();
+        List<SerializedObjectData> kept = new ArrayList<>(objects.subList(0, lengths.length));
+        objects.clear();
+        infoMap.clear();
+
+        for (int i = 0; i < lengths.length; i++) {
+            SerializedObjectData object = kept.get(i);
+            object.buffer(ByteBuffer.allocate(lengths[i]));
+            objects.add(object);
+            infoMap.put(object.id(), object.info());
+        }
+
+        try (SerializedFileWriter writer = new SerializedFileWriter(
+                DataWriters.forFile(file, WRITE))) {
+            writer.write(asset);
+        }
+
+        return asset;
+    }
+
+    private static void updateObjectInfos(Path file, SerializedFile serialized) throws IOException {
+        // overwrite the object table in place like the writer does
+        try (DataWriter out = DataWriters.forFile(file, WRITE)) {
+            if (serialized.header().version() > 5) {
+                out.order(ByteOrder.LITTLE_ENDIAN);
+            }
+            out.position(serialized.metadata().objectInfoBlock().offset());
+            out.writeStruct(serialized.metadata().objectInfoTable());
+        }
+    }
+
+    private static List<ObjectInfo> sortedInfos(SerializedFile serialized) {
+        List<ObjectInfo> infos = new ArrayList<>();
+        serialized.objectData().forEach(object -> infos.add(object.info()));
+        infos.sort(Comparator.comparingLong(ObjectInfo::offset));
+        return infos;
+    }
+
+    private static long gapSize(List<ObjectInfo> infos, int index) {
+        ObjectInfo info = infos.get(index);
+        return infos.get(index + 1).offset() - (info.offset() + info.length());
+    }
 }
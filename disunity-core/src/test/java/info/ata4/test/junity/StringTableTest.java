@@ -0,0 +1,181 @@
+/*
+ ** 2026 October 18
+ **
+ ** The author disclaims copyright to this source code. In place of
+ ** a legal notice, here is a blessing:
+ **    May you do good and not evil.
+ **    May you find forgiveness for yourself and forgive others.
+ **    May you share freely, never taking more than you give.
+ */
+package info.ata4.test.junity;
+
+import com.google.common.collect.BiMap;
+import info.ata4.junity.serialize.typetree.CommonStringTable;
+import info.ata4.junity.serialize.typetree.StringTable;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author Nico Bergemann <barracuda415 at yahoo.de>
+ */
+public class StringTableTest {
+
+    private static final byte[] LOCAL_STRINGS = "Base\0m_Name\0\0string\0".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void localStringsAtStart() {
+        assertEquals("First string must be found", "Base", StringTable.localString(LOCAL_STRINGS, 0));
+        assertEquals("String after null must be found", "m_Name", StringTable.localString(LOCAL_STRINGS, 5));
+        assertEquals("Empty string must be found", "", StringTable.localString(LOCAL_STRINGS, 12));
+        assertEquals("Last string must be found", "string", StringTable.localString(LOCAL_STRINGS, 13));
+    }
+
+    @Test
+    public void localStringsInsideString() {
+        assertNull("Offset inside a string must not match", StringTable.localString(LOCAL_STRINGS, 1));
+        assertNull("Offset inside a string must not match", StringTable.localString(LOCAL_STRINGS, 7));
+        assertNull("Offset of a terminator must not match", StringTable.localString(LOCAL_STRINGS, 4));
+    }
+
+    @Test
+    public void localStringsOutOfRange() {
+        assertNull("Offset at the end must not match",
+                StringTable.localString(LOCAL_STRINGS, LOCAL_STRINGS.length));
+        assertNull("Offset past the end must not match",
+                StringTable.localString(LOCAL_STRINGS, LOCAL_STRINGS.length + 10));
+        assertNull("Negative offset must not match", StringTable.localString(LOCAL_STRINGS, -1));
+        assertNull("Empty table must not match", StringTable.localString(new byte[0], 0));
+    }
+
+    @Test
+    public void localStringWithoutTerminator() {
+        byte[] data = "Base\0m_Na".getBytes(StandardCharsets.UTF_8);
+        assertEquals("Unterminated string must end with the table", "m_Na",
+                StringTable.localString(data, 5));
+    }
+
+    @Test
+    public void commonStringOffsets() {
+        CommonStringTable table = new CommonStringTable(Arrays.asList("AABB", "int", "", "bool"));
+
+        assertEquals("First offset must have the highest bit set", Integer.valueOf(1 << 31), table.offset("AABB"));
+        assertEquals("Offsets must count terminators", Integer.valueOf((1 << 31) + 5), table.offset("int"));
+        assertEquals("Offsets must count terminators", Integer.valueOf((1 << 31) + 10), table.offset("bool"));
+        assertNull("Unknown string must not have an offset", table.offset("float"));
+
+        assertEquals("String must be found by offset", "int", table.string((1 << 31) + 5));
+        assertNull("Offset inside a string must not match", table.string((1 << 31) + 6));
+        assertNull("Offset past the end must not match", table.string((1 << 31) + 15));
+        assertNull("Local offset must not match", table.string(5));
+
+        assertTrue("Common offset must be detected", CommonStringTable.isCommonOffset(1 << 31));
+        assertFalse("Local offset must be detected", CommonStringTable.isCommonOffset(0));
+    }
+
+    @Test
+    public void duplicateCommonStrings() {
+        CommonStringTable table = new CommonStringTable(Arrays.asList("int", "bool", "int"));
+
+        assertEquals("Duplicate must use the first offset", Integer.valueOf(1 << 31), table.offset("int"));
+        assertEquals("Duplicates must be counted once", 2, table.size());
+
+        // both occurrences can still be resolved by offset
+        assertEquals("First occurrence must be found", "int", table.string(1 << 31));
+        assertEquals("Second occurrence must be found", "int", table.string((1 << 31) + 9));
+    }
+
+    @Test
+    public void commonStringsCompatible() throws IOException {
+        // same contents as the maps that were created before the table existed
+        Map<Integer, String> expected = new HashMap<>();
+        int index = 1 << 31;
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(
+                StringTable.class.getResourceAsStream("/resources/strings/5.x.txt"),
+                StandardCharsets.US_ASCII))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                expected.put(index, line);
+                index += line.length() + 1;
+            }
+        }
+
+        BiMap<Integer, String> commonStrings = StringTable.commonStrings(5);
+        assertEquals("Common strings must match", expected, commonStrings);
+        assertEquals("Table size must match", expected.size(), StringTable.commonStringTable(5).size());
+
+        expected.forEach((offset, string) -> {
+            assertEquals("Offset must be found by string", offset, commonStrings.inverse().get(string));
+            assertEquals("Table offset must match", offset, uncheckedTable(5).offset(string));
+            assertEquals("Table string must match", string, uncheckedTable(5).string(offset));
+        });
+
+        // returned maps are copies
+        commonStrings.clear();
+        assertEquals("Common strings must not be shared", expected, StringTable.commonStrings(5));
+    }
+
+    @Test
+    public void concurrentFirstLoads() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 20; round++) {
+                clearCommonStringTables();
+
+                CyclicBarrier barrier = new CyclicBarrier(threads);
+                List<Callable<CommonStringTable>> loads = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    loads.add(() -> {
+                        barrier.await();
+                        return StringTable.commonStringTable(5);
+                    });
+                }
+
+                List<Future<CommonStringTable>> results = executor.invokeAll(loads);
+                CommonStringTable first = results.get(0).get();
+                for (Future<CommonStringTable> result : results) {
+                    assertSame("Concurrent loads must return the same table", first, result.get());
+                }
+                assertSame("Later loads must return the same table", first, StringTable.commonStringTable(5));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static CommonStringTable uncheckedTable(int version) {
+        try {
+            return StringTable.commonStringTable(version);
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private static void clearCommonStringTables() throws ReflectiveOperationException {
+        // the tables are cached for the whole JVM, so drop them to test the
+        // first load again
+        Field field = StringTable.class.getDeclaredField("commonTables");
+        field.setAccessible(true);
+        ((Map<?, ?>) field.get(null)).clear();
+    }
+}
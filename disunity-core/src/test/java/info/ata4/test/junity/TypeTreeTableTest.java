@@ -0,0 +1,78 @@
+/*
+ ** 2026 October 18
+ **
+ ** The author disclaims copyright to this source code. In place of
+ ** a legal notice, here is a blessing:
+ **    May you do good and not evil.
+ **    May you find forgiveness for yourself and forgive others.
+ **    May you share freely, never taking more than you give.
+ */
+package info.ata4.test.junity;
+
+import info.ata4.io.DataReader;
+import info.ata4.io.DataReaders;
+import info.ata4.junity.serialize.SerializedFileException;
+import info.ata4.junity.serialize.typetree.StringTable;
+import info.ata4.junity.serialize.typetree.TypeTreeTable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+/**
+ *
+ * @author Nico Bergemann <barracuda415 at yahoo.de>
+ */
+public class TypeTreeTableTest {
+
+    @Test
+    public void emptyTree() throws IOException {
+        TypeTreeTable table = read(tree(0, 0, 0));
+        assertEquals("Tree must be empty", 0, table.numFields());
+    }
+
+    @Test
+    public void negativeSizesRejected() throws IOException {
+        assertInvalid(tree(-1, 0, 64));
+        assertInvalid(tree(0, -1, 64));
+    }
+
+    @Test
+    public void overflowingSizesRejected() throws IOException {
+        // 24 bytes per field overflows to 8 bytes in int arithmetic
+        assertInvalid(tree(0x0aaaaaab, 0, 64));
+        assertInvalid(tree(Integer.MAX_VALUE, Integer.MAX_VALUE, 64));
+    }
+
+    @Test
+    public void truncatedTreeRejected() throws IOException {
+        // one field needs 24 bytes, plus the string table
+        assertInvalid(tree(1, 0, 23));
+        assertInvalid(tree(1, 100, 24 + 99));
+    }
+
+    private static ByteBuffer tree(int numFields, int stringTableLen, int dataSize) {
+        ByteBuffer bb = ByteBuffer.allocate(8 + dataSize).order(ByteOrder.LITTLE_ENDIAN);
+        bb.putInt(numFields);
+        bb.putInt(stringTableLen);
+        bb.rewind();
+        return bb;
+    }
+
+    private static TypeTreeTable read(ByteBuffer bb) throws IOException {
+        DataReader in = DataReaders.forByteBuffer(bb);
+        in.order(ByteOrder.LITTLE_ENDIAN);
+        return TypeTreeTable.read(in, StringTable.commonStringTable(5));
+    }
+
+    private static void assertInvalid(ByteBuffer bb) throws IOException {
+        try {
+            read(bb);
+            fail("Invalid type tree size must be rejected");
+        } catch (SerializedFileException ex) {
+            // expected
+        }
+    }
+}
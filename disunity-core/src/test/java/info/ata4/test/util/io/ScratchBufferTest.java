@@ -0,0 +1,89 @@
+/*
+ ** 2026 October 18
+ **
+ ** The author disclaims copyright to this source code. In place of
+ ** a legal notice, here is a blessing:
+ **    May you do good and not evil.
+ **    May you find forgiveness for yourself and forgive others.
+ **    May you share freely, never taking more than you give.
+ */
+package info.ata4.test.util.io;
+
+import info.ata4.util.io.ScratchBuffer;
+import java.util.concurrent.CompletableFuture;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ * @author Nico Bergemann <barracuda415 at yahoo.de>
+ */
+public class ScratchBufferTest {
+
+    @Test
+    public void reusedOnSameThread() {
+        ScratchBuffer scratch = new ScratchBuffer();
+        byte[] buffer = scratch.get(1000);
+
+        assertTrue("Buffer must be large enough", buffer.length >= 1000);
+        assertSame("Buffer must be reused for the same size", buffer, scratch.get(1000));
+        assertSame("Buffer must be reused for smaller sizes", buffer, scratch.get(1));
+    }
+
+    @Test
+    public void growsToPowerOfTwo() {
+        ScratchBuffer scratch = new ScratchBuffer(1 << 12);
+
+        assertEquals("Size must be rounded up", 1024, scratch.get(1000).length);
+        assertEquals("Power of two must be kept", 1024, scratch.get(1024).length);
+        assertEquals("Size must be rounded up", 2048, scratch.get(1025).length);
+
+        // the limit caps the rounding, but the requested size is still met
+        assertEquals("Size must be capped at the limit", 1 << 12, scratch.get(3000).length);
+        assertEquals("Size must be exact at the limit", 1 << 12, scratch.get(1 << 12).length);
+    }
+
+    @Test
+    public void tinySizes() {
+        ScratchBuffer scratch = new ScratchBuffer();
+
+        assertTrue("Zero size must return an array", scratch.get(0).length >= 0);
+        assertTrue("Buffer must be large enough", scratch.get(1).length >= 1);
+        assertTrue("Buffer must be large enough", scratch.get(2).length >= 2);
+    }
+
+    @Test
+    public void oversizedNotRetained() {
+        ScratchBuffer scratch = new ScratchBuffer(1 << 10);
+        byte[] small = scratch.get(100);
+
+        byte[] large = scratch.get(5000);
+        assertEquals("Oversized buffer must be exact", 5000, large.length);
+        assertNotSame("Oversized buffer must not be retained", large, scratch.get(5000));
+
+        // the retained buffer isn't replaced by the oversized request
+        assertSame("Retained buffer must be kept", small, scratch.get(100));
+    }
+
+    @Test
+    public void separateBuffersPerThread() throws Exception {
+        ScratchBuffer scratch = new ScratchBuffer();
+        byte[] buffer = scratch.get(100);
+
+        byte[] other = CompletableFuture.supplyAsync(() -> scratch.get(100)).get();
+        assertNotSame("Threads must not share buffers", buffer, other);
+        assertSame("Buffer of this thread must be kept", buffer, scratch.get(100));
+    }
+
+    @Test
+    public void release() {
+        ScratchBuffer scratch = new ScratchBuffer();
+        byte[] buffer = scratch.get(100);
+
+        scratch.release();
+        assertNotSame("Released buffer must not be returned", buffer, scratch.get(100));
+    }
+}
@@ -0,0 +1,322 @@
+/*
+ ** 2026 October 18
+ **
+ ** The author disclaims copyright to this source code. In place of
+ ** a legal notice, here is a blessing:
+ **    May you do good and not evil.
+ **    May you find forgiveness for yourself and forgive others.
+ **    May you share freely, never taking more than you give.
+ */
+package info.ata4.test.util.lz4;
+
+import info.ata4.util.lz4.LZ4Compressor;
+import info.ata4.util.lz4.LZ4Exception;
+import info.ata4.util.lz4.LZ4FastDecompressor;
+import info.ata4.util.lz4.LZ4JavaSafeFastDecompressor;
+import info.ata4.util.lz4.LZ4JavaUnsafeFastDecompressor;
+import info.ata4.util.lz4.LZ4Utils;
+import info.ata4.util.lz4.Utils;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+/**
+ * Compares the unsafe LZ4 decompressor with the safe one, which is a direct
+ * port of the reference implementation.
+ *
+ * @author Nico Bergemann <barracuda415 at yahoo.de>
+ */
+public class LZ4FastDecompressorTest {
+
+    private static final LZ4FastDecompressor SAFE = LZ4JavaSafeFastDecompressor.INSTANCE;
+    private static final LZ4FastDecompressor UNSAFE = LZ4JavaUnsafeFastDecompressor.INSTANCE;
+
+    // sizes around the 8 byte copy width and the end of block rules
+    private static final int[] SIZES = {
+        1, 2, 3, 4, 5, 7, 8, 9, 12, 13, 15, 16, 17, 31, 32, 33, 64, 100, 1000,
+        4096, 65535, 65536, 65537, 1 << 18
+    };
+
+    private static final byte GUARD = 0x5a;
+
+    @Test
+    public void unsafeSelectedByDefault() {
+        if (Utils.isUnalignedAccessAllowed()
+                && Boolean.parseBoolean(System.getProperty(LZ4Utils.UNSAFE_PROPERTY, "true"))) {
+            assertSame("Unsafe decompressor must be the default",
+                    UNSAFE, LZ4Utils.fastDecompressor());
+        }
+    }
+
+    @Test
+    public void randomDataMatches() {
+        Random random = new Random(0);
+        for (int size : SIZES) {
+            // incompressible data
+            byte[] data = new byte[size];
+            random.nextBytes(data);
+            assertDecompressedEqual(data);
+
+            // few distinct values, which results in many short matches
+            for (int i = 0; i < size; i++) {
+                data[i] = (byte) random.nextInt(4);
+            }
+            assertDecompressedEqual(data);
+
+            // repeated patterns with periods shorter than the copy width,
+            // which results in overlapping matches
+            for (int period = 1; period <= 9; period++) {
+                for (int i = 0; i < size; i++) {
+                    data[i] = (byte) (i % period);
+                }
+                assertDecompressedEqual(data);
+            }
+        }
+    }
+
+    @Test
+    public void realDataMatches() throws IOException {
+        for (Path file : testFiles()) {
+            byte[] data = Files.readAllBytes(file);
+            assertDecompressedEqual(Arrays.copyOf(data, Math.min(data.length, 1 << 16)));
+        }
+    }
+
+    @Test
+    public void offsetsMatch() {
+        Random random = new Random(1);
+        for (int size : SIZES) {
+            if (size > 1 << 16) {
+                continue;
+            }
+
+            byte[] data = new byte[size];
+            for (int i = 0; i < size; i++) {
+                data[i] = (byte) (random.nextInt(8) == 0 ? random.nextInt() : i / 10);
+            }
+            byte[] compressed = LZ4Utils.fastCompressor().compress(data);
+
+            for (int srcOff : new int[] {0, 1, 7, 8, 13}) {
+                for (int destOff : new int[] {0, 1, 7, 8, 13}) {
+                    // trailing bytes after the block in the source must be
+                    // ignored
+                    byte[] src = new byte[srcOff + compressed.length + 9];
+                    Arrays.fill(src, (byte) 0xff);
+                    System.arraycopy(compressed, 0, src, srcOff, compressed.length);
+
+                    byte[] destSafe = decompress(SAFE, src, srcOff, destOff, size);
+                    byte[] destUnsafe = decompress(UNSAFE, src, srcOff, destOff, size);
+
+                    assertArrayEquals("Decompressed data must match", destSafe, destUnsafe);
+                    assertArrayEquals("Data must be restored", data,
+                            Arrays.copyOfRange(destUnsafe, destOff, destOff + size));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void tinyOutputs() {
+        for (LZ4FastDecompressor decompressor : Arrays.asList(SAFE, UNSAFE)) {
+            // empty blocks consist of a single zero token
+            assertEquals("Empty block must be one byte", 1,
+                    decompressor.decompress(new byte[] {0}, 0, new byte[0], 0, 0));
+            assertEquals("Empty block must be one byte", 1,
+                    decompressor.decompress(new byte[] {7, 0, 7}, 1, new byte[4], 4, 0));
+            assertThrowsLZ4(decompressor, new byte[] {0x10, 'a'}, 0, new byte[0], 0, 0);
+
+            // a single literal
+            byte[] dest = new byte[1];
+            assertEquals("Block must be read completely", 2,
+                    decompressor.decompress(new byte[] {0x10, 'a'}, 0, dest, 0, 1));
+            assertEquals("Literal must be restored", 'a', dest[0]);
+        }
+    }
+
+    @Test
+    public void invalidArguments() {
+        byte[] src = LZ4Utils.fastCompressor().compress(new byte[100]);
+        for (LZ4FastDecompressor decompressor : Arrays.asList(SAFE, UNSAFE)) {
+            assertThrows(decompressor, IllegalArgumentException.class, src, 0, new byte[100], 0, -1);
+            assertThrows(decompressor, ArrayIndexOutOfBoundsException.class, src, -1, new byte[100], 0, 100);
+            assertThrows(decompressor, ArrayIndexOutOfBoundsException.class, src, src.length, new byte[100], 0, 100);
+            assertThrows(decompressor, ArrayIndexOutOfBoundsException.class, src, 0, new byte[100], -1, 100);
+            assertThrows(decompressor, ArrayIndexOutOfBoundsException.class, src, 0, new byte[100], 1, 100);
+            assertThrows(decompressor, ArrayIndexOutOfBoundsException.class, src, 0, new byte[99], 0, 100);
+        }
+    }
+
+    @Test
+    public void truncatedInputFails() {
+        Random random = new Random(2);
+        for (int size : SIZES) {
+            byte[] data = new byte[size];
+            for (int i = 0; i < size; i++) {
+                data[i] = (byte) (random.nextInt(4) == 0 ? random.nextInt() : i % 5);
+            }
+            byte[] compressed = LZ4Utils.fastCompressor().compress(data);
+
+            // test all lengths of small blocks and a sample of larger ones
+            int step = Math.max(1, compressed.length / 64);
+            for (int length = 1; length < compressed.length; length += step) {
+                byte[] truncated = Arrays.copyOf(compressed, length);
+                assertThrowsLZ4(UNSAFE, truncated, 0, new byte[size], 0, size);
+                try {
+                    SAFE.decompress(truncated, 0, new byte[size], 0, size);
+                    fail("Truncated block must not be decompressed");
+                } catch (LZ4Exception | IndexOutOfBoundsException ex) {
+                    // expected
+                }
+            }
+        }
+    }
+
+    @Test
+    public void corruptInputStaysInBounds() throws IOException {
+        Random random = new Random(3);
+        List<byte[]> samples = Stream.concat(
+            Stream.of(new byte[1000], pattern(4096, 3), pattern(777, 9)),
+            testFiles().stream().map(file -> {
+                try {
+                    byte[] data = Files.readAllBytes(file);
+                    return Arrays.copyOf(data, Math.min(data.length, 1 << 12));
+                } catch (IOException ex) {
+                    throw new RuntimeException(ex);
+                }
+            })
+        ).collect(Collectors.toList());
+
+        for (byte[] data : samples) {
+            byte[] compressed = LZ4Utils.highCompressor().compress(data);
+
+            for (int n = 0; n < 200; n++) {
+                byte[] corrupt = compressed.clone();
+                int changes = 1 + random.nextInt(3);
+                for (int i = 0; i < changes; i++) {
+                    corrupt[random.nextInt(corrupt.length)] = (byte) random.nextInt();
+                }
+
+                // write with guard areas around the output to detect writes
+                // outside the given range
+                byte[] destUnsafe = guarded(data.length);
+                int readUnsafe;
+                try {
+                    readUnsafe = UNSAFE.decompress(corrupt, 0, destUnsafe, 8, data.length);
+                } catch (LZ4Exception ex) {
+                    assertGuardsIntact(destUnsafe, data.length);
+                    continue;
+                }
+                assertGuardsIntact(destUnsafe, data.length);
+
+                // the safe decompressor must accept anything the unsafe one
+                // accepts, with the same result
+                byte[] destSafe = guarded(data.length);
+                int readSafe = SAFE.decompress(corrupt, 0, destSafe, 8, data.length);
+                assertEquals("Bytes read must match", readSafe, readUnsafe);
+                assertArrayEquals("Decompressed data must match", destSafe, destUnsafe);
+            }
+        }
+    }
+
+    @Test
+    public void invalidMatchOffsetFails() {
+        // one literal followed by a match that starts before the output
+        byte[] src = {0x10, 'a', 2, 0, 0x50, 'a', 'b', 'c', 'd', 'e'};
+        assertThrowsLZ4(SAFE, src, 0, new byte[100], 0, 100);
+        assertThrowsLZ4(UNSAFE, src, 0, new byte[100], 0, 100);
+
+        // match offset zero
+        src[2] = 0;
+        assertThrowsLZ4(SAFE, src, 0, new byte[100], 0, 100);
+        assertThrowsLZ4(UNSAFE, src, 0, new byte[100], 0, 100);
+
+        // match that ends behind the output
+        byte[] overlong = {0x1f, 'a', 1, 0, 0x7f, 0};
+        assertThrowsLZ4(SAFE, overlong, 0, new byte[20], 0, 20);
+        assertThrowsLZ4(UNSAFE, overlong, 0, new byte[20], 0, 20);
+    }
+
+    private static void assertDecompressedEqual(byte[] data) {
+        for (LZ4Compressor compressor : Arrays.asList(LZ4Utils.fastCompressor(), LZ4Utils.highCompressor())) {
+            byte[] compressed = compressor.compress(data);
+
+            byte[] destSafe = new byte[data.length];
+            byte[] destUnsafe = new byte[data.length];
+            assertEquals("Safe decompressor must read the whole block",
+                    compressed.length, SAFE.decompress(compressed, destSafe));
+            assertEquals("Unsafe decompressor must read the whole block",
+                    compressed.length, UNSAFE.decompress(compressed, destUnsafe));
+            assertArrayEquals("Safe decompressor must restore the data", data, destSafe);
+            assertArrayEquals("Unsafe decompressor must restore the data", data, destUnsafe);
+        }
+    }
+
+    private static byte[] decompress(LZ4FastDecompressor decompressor, byte[] src,
+            int srcOff, int destOff, int destLen) {
+        byte[] dest = new byte[destOff + destLen + 9];
+        Arrays.fill(dest, GUARD);
+        decompressor.decompress(src, srcOff, dest, destOff, destLen);
+        return dest;
+    }
+
+    private static byte[] guarded(int length) {
+        byte[] dest = new byte[length + 16];
+        Arrays.fill(dest, GUARD);
+        return dest;
+    }
+
+    private static void assertGuardsIntact(byte[] dest, int length) {
+        for (int i = 0; i < 8; i++) {
+            assertEquals("Bytes before the output must not be written", GUARD, dest[i]);
+            assertEquals("Bytes after the output must not be written", GUARD, dest[8 + length + i]);
+        }
+    }
+
+    private static void assertThrowsLZ4(LZ4FastDecompressor decompressor, byte[] src,
+            int srcOff, byte[] dest, int destOff, int destLen) {
+        assertThrows(decompressor, LZ4Exception.class, src, srcOff, dest, destOff, destLen);
+    }
+
+    private static void assertThrows(LZ4FastDecompressor decompressor,
+            Class<? extends Exception> type, byte[] src, int srcOff, byte[] dest,
+            int destOff, int destLen) {
+        try {
+            decompressor.decompress(src, srcOff, dest, destOff, destLen);
+            fail(decompressor.getClass().getSimpleName() + " must throw " + type.getSimpleName());
+        } catch (RuntimeException ex) {
+            assertTrue(decompressor.getClass().getSimpleName() + " must throw "
+                    + type.getSimpleName() + ", got " + ex, type.isInstance(ex));
+        }
+    }
+
+    private static byte[] pattern(int length, int period) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i % period);
+        }
+        return data;
+    }
+
+    private static List<Path> testFiles() throws IOException {
+        Path dir = Paths.get("src", "test", "resources", "mainData");
+        try (Stream<Path> files = Files.walk(dir)) {
+            List<Path> list = files.filter(Files::isRegularFile).sorted()
+                    .collect(Collectors.toList());
+            assertFalse("Test files must exist", list.isEmpty());
+            return list;
+        }
+    }
+}